@@ -0,0 +1,33 @@
+package com.ecommerce.common.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 缓存条目包装：除值外记录回源耗时与过期时间，用于过期前的概率提前刷新
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheEnvelope<T> {
+    private T value; // 缓存值
+    private long loadMillis; // 回源耗时（毫秒）
+    private long expireAt; // 过期时间（毫秒时间戳），Long.MAX_VALUE表示不过期
+
+    /**
+     * 按XFetch算法判断本次读取是否提前刷新：越接近过期、回源越慢，刷新概率越高，
+     * 并发读取中通常只有一个请求提前回源，其余请求继续使用当前值
+     * @param beta 提前程度，大于1更早刷新
+     */
+    public boolean shouldRefresh(double beta) {
+        if (expireAt == Long.MAX_VALUE) {
+            return false;
+        }
+        double random = 1.0 - ThreadLocalRandom.current().nextDouble();
+        long gap = (long) (-Math.max(loadMillis, 1) * beta * Math.log(random));
+        return System.currentTimeMillis() + gap >= expireAt;
+    }
+}
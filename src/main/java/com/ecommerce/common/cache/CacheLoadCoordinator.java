@@ -0,0 +1,187 @@
+package com.ecommerce.common.cache;
+
+import com.ecommerce.common.constant.ErrorCode;
+import com.ecommerce.common.exception.BusinessException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 缓存回源协调器
+ * 同一节点内同一键的并发未命中只执行一次回源，其余请求等待其结果；
+ * 节点间通过Redis租约（SET NX PX）约束同一时刻只有一个节点回源，未取得租约的节点轮询缓存等待写入，
+ * 等待超时后自行回源。条目在过期前按XFetch概率提前刷新，刷新期间其他请求继续使用当前值
+ */
+@Slf4j
+public class CacheLoadCoordinator {
+
+    private static final String LEASE_PREFIX = "cache:lease:";
+
+    /**
+     * 持有者匹配时才删除租约
+     */
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then\n" +
+            "  return redis.call('DEL', KEYS[1])\n" +
+            "end\n" +
+            "return 0", Long.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final long leaseMs;
+    private final long waitMs;
+    private final long pollMs;
+    private final double beta;
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    public CacheLoadCoordinator(RedisTemplate<String, Object> redisTemplate, long leaseMs, long waitMs, long pollMs, double beta) {
+        this.redisTemplate = redisTemplate;
+        this.leaseMs = leaseMs;
+        this.waitMs = waitMs;
+        this.pollMs = pollMs;
+        this.beta = beta;
+    }
+
+    /**
+     * 读取缓存，未命中或需要提前刷新时协调回源
+     * @param key 缓存键，用于合并回源与租约
+     * @param reader 读取Redis中的条目，不存在返回null
+     * @param writer 写入回源结果
+     * @param loader 回源加载
+     * @param ttl 条目有效期，为null或非正数时不提前刷新
+     */
+    public <T> T get(String key, Supplier<CacheEnvelope<T>> reader, Consumer<CacheEnvelope<T>> writer,
+                     Supplier<T> loader, Duration ttl) {
+        CacheEnvelope<T> cached = reader.get();
+        if (cached != null && (!cached.shouldRefresh(beta) || inFlight.containsKey(key))) {
+            // 未到刷新时机，或本节点已有请求在刷新
+            return cached.getValue();
+        }
+        return singleFlight(key, () -> load(key, cached, reader, writer, loader, ttl));
+    }
+
+    private <T> T load(String key, CacheEnvelope<T> cached, Supplier<CacheEnvelope<T>> reader,
+                       Consumer<CacheEnvelope<T>> writer, Supplier<T> loader, Duration ttl) {
+        String token = tryLease(key);
+        if (token == null) {
+            if (cached != null) {
+                // 其他节点正在刷新，继续使用当前值
+                return cached.getValue();
+            }
+            CacheEnvelope<T> loaded = waitFor(reader);
+            if (loaded != null) {
+                return loaded.getValue();
+            }
+            log.debug("等待其他节点回源超时，自行回源，缓存键: {}", key);
+        }
+        try {
+            if (cached == null) {
+                // 取得租约前其他节点可能刚写入
+                CacheEnvelope<T> current = reader.get();
+                if (current != null) {
+                    return current.getValue();
+                }
+            }
+            long start = System.currentTimeMillis();
+            T value = loader.get();
+            long now = System.currentTimeMillis();
+            long expireAt = ttl == null || ttl.isZero() || ttl.isNegative() ? Long.MAX_VALUE : now + ttl.toMillis();
+            if (value != null) {
+                writer.accept(new CacheEnvelope<>(value, now - start, expireAt));
+            }
+            return value;
+        } finally {
+            if (token != null) {
+                releaseLease(key, token);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T singleFlight(String key, Supplier<T> action) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            try {
+                return (T) existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+        try {
+            T value = action.get();
+            future.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private <T> CacheEnvelope<T> waitFor(Supplier<CacheEnvelope<T>> reader) {
+        long deadline = System.currentTimeMillis() + waitMs;
+        while (System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(pollMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new BusinessException(ErrorCode.SYSTEM_ERROR, "等待缓存加载被中断");
+            }
+            CacheEnvelope<T> loaded = reader.get();
+            if (loaded != null) {
+                return loaded;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 尝试取得回源租约，Redis不可用时视为取得，退化为本节点内合并
+     */
+    private String tryLease(String key) {
+        String token = UUID.randomUUID().toString();
+        try {
+            Boolean acquired = redisTemplate.execute((RedisCallback<Boolean>) connection ->
+                    connection.stringCommands().set(bytes(LEASE_PREFIX + key), bytes(token),
+                            Expiration.milliseconds(leaseMs), SetOption.SET_IF_ABSENT));
+            return Boolean.TRUE.equals(acquired) ? token : null;
+        } catch (Exception e) {
+            log.warn("获取缓存回源租约失败，缓存键: {}, 错误: {}", key, e.getMessage());
+            return token;
+        }
+    }
+
+    private void releaseLease(String key, String token) {
+        try {
+            redisTemplate.execute(RELEASE_SCRIPT, new StringRedisSerializer(), new GenericToStringSerializer<>(Long.class),
+                    List.of(LEASE_PREFIX + key), token);
+        } catch (Exception e) {
+            // 租约到期后自动释放
+            log.warn("释放缓存回源租约失败，缓存键: {}, 错误: {}", key, e.getMessage());
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
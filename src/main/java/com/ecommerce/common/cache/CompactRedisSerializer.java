@@ -0,0 +1,519 @@
+package com.ecommerce.common.cache;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 紧凑二进制Redis序列化器
+ * 注册类型按固定字段顺序写出字段值，不写字段名与类名；数值用变长编码，时间写为秒与纳秒，
+ * 元素全为Long的List（如搜索结果ID）按相邻差值编码，编码后超过阈值且能节省四分之一以上时Deflate压缩。格式为：标记字节、标志字节、4字节结构指纹、值
+ * 结构指纹由全部注册类型的字段名与字段类型计算，类型结构变化后旧值按未命中处理（返回null）
+ * 顶层不是注册类型、List或Map的值（数字、字符串、幂等记录等）以及嵌套的未知类型仍交给JSON序列化器，
+ * 保证Lua脚本和INCR类命令读写的数值保持原有文本格式；读取时首字节不是标记字节的按JSON解析，兼容已有数据
+ */
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    /**
+     * 标记字节，不是合法的UTF-8首字节，不会与JSON文本冲突
+     */
+    private static final byte MARKER = (byte) 0xC1;
+    private static final int FLAG_DEFLATE = 1;
+    private static final int HEADER_LENGTH = 6;
+
+    private static final int TAG_NULL = 0;
+    private static final int TAG_TRUE = 1;
+    private static final int TAG_FALSE = 2;
+    private static final int TAG_INT = 3;
+    private static final int TAG_LONG = 4;
+    private static final int TAG_DOUBLE = 5;
+    private static final int TAG_STRING = 6;
+    private static final int TAG_DECIMAL = 7;
+    private static final int TAG_DATE_TIME = 8;
+    private static final int TAG_DATE = 9;
+    private static final int TAG_LIST = 10;
+    private static final int TAG_MAP = 11;
+    private static final int TAG_OBJECT = 12;
+    private static final int TAG_JSON = 13;
+    private static final int TAG_LONG_LIST = 14;
+
+    /**
+     * 每个线程复用压缩器：创建时分配的本地缓冲区远大于一般缓存值，逐次创建的开销超过压缩本身
+     */
+    private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED));
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(Inflater::new);
+
+    private final RedisSerializer<Object> fallback;
+    private final int compressThreshold;
+    private final List<Schema> schemas = new ArrayList<>();
+    private final Map<Class<?>, Schema> schemaByType = new HashMap<>();
+    private final int fingerprint;
+
+    /**
+     * @param fallback JSON序列化器，用于未注册类型及兼容已有数据
+     * @param compressThreshold 编码后超过该字节数时压缩，非正数表示不压缩
+     * @param types 注册类型，按顺序编号，调整顺序或增删类型会改变结构指纹
+     */
+    public CompactRedisSerializer(RedisSerializer<Object> fallback, int compressThreshold, List<Class<?>> types) {
+        this.fallback = fallback;
+        this.compressThreshold = compressThreshold;
+        CRC32 crc = new CRC32();
+        for (Class<?> type : types) {
+            Schema schema = new Schema(schemas.size(), type);
+            schemas.add(schema);
+            schemaByType.put(type, schema);
+            crc.update(schema.describe().getBytes(StandardCharsets.UTF_8));
+        }
+        this.fingerprint = (int) crc.getValue();
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null || !(schemaByType.containsKey(value.getClass()) || value instanceof List || value instanceof Map)) {
+            return fallback.serialize(value);
+        }
+        Output body = new Output(256);
+        writeValue(body, value);
+        int flags = 0;
+        byte[] payload = body.toByteArray();
+        if (compressThreshold > 0 && payload.length > compressThreshold) {
+            byte[] compressed = deflate(payload);
+            // 节省不足四分之一时不压缩，读取时免去解压
+            if (compressed.length <= payload.length - payload.length / 4) {
+                Output output = new Output(compressed.length + 5);
+                output.writeVarint(payload.length);
+                output.writeBytes(compressed, 0, compressed.length);
+                payload = output.toByteArray();
+                flags |= FLAG_DEFLATE;
+            }
+        }
+        byte[] result = new byte[HEADER_LENGTH + payload.length];
+        result[0] = MARKER;
+        result[1] = (byte) flags;
+        result[2] = (byte) (fingerprint >>> 24);
+        result[3] = (byte) (fingerprint >>> 16);
+        result[4] = (byte) (fingerprint >>> 8);
+        result[5] = (byte) fingerprint;
+        System.arraycopy(payload, 0, result, HEADER_LENGTH, payload.length);
+        return result;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MARKER) {
+            return fallback.deserialize(bytes);
+        }
+        if (bytes.length < HEADER_LENGTH) {
+            throw new SerializationException("缓存数据不完整");
+        }
+        int stored = (bytes[2] & 0xFF) << 24 | (bytes[3] & 0xFF) << 16 | (bytes[4] & 0xFF) << 8 | (bytes[5] & 0xFF);
+        if (stored != fingerprint) {
+            // 类型结构已变化，按未命中处理，由回源重新写入
+            return null;
+        }
+        Input input = new Input(bytes, HEADER_LENGTH);
+        if ((bytes[1] & FLAG_DEFLATE) != 0) {
+            int length = input.readVarint();
+            input = new Input(inflate(bytes, input.pos, length), 0);
+        }
+        try {
+            return readValue(input);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new SerializationException("缓存数据解析失败", e);
+        }
+    }
+
+    private void writeValue(Output out, Object value) {
+        if (value == null) {
+            out.write(TAG_NULL);
+        } else if (value instanceof Boolean b) {
+            out.write(b ? TAG_TRUE : TAG_FALSE);
+        } else if (value instanceof Integer i) {
+            out.write(TAG_INT);
+            out.writeVarlong(zigzag(i));
+        } else if (value instanceof Long l) {
+            out.write(TAG_LONG);
+            out.writeVarlong(zigzag(l));
+        } else if (value instanceof Double d) {
+            out.write(TAG_DOUBLE);
+            out.writeLong(Double.doubleToLongBits(d));
+        } else if (value instanceof String s) {
+            out.write(TAG_STRING);
+            out.writeString(s);
+        } else if (value instanceof BigDecimal d) {
+            out.write(TAG_DECIMAL);
+            out.writeVarlong(zigzag(d.scale()));
+            byte[] unscaled = d.unscaledValue().toByteArray();
+            out.writeVarint(unscaled.length);
+            out.writeBytes(unscaled, 0, unscaled.length);
+        } else if (value instanceof LocalDateTime t) {
+            out.write(TAG_DATE_TIME);
+            out.writeVarlong(zigzag(t.toEpochSecond(ZoneOffset.UTC)));
+            out.writeVarint(t.getNano());
+        } else if (value instanceof LocalDate d) {
+            out.write(TAG_DATE);
+            out.writeVarlong(zigzag(d.toEpochDay()));
+        } else if (value instanceof List<?> list && isLongList(list)) {
+            out.write(TAG_LONG_LIST);
+            out.writeVarint(list.size());
+            long previous = 0;
+            for (Object element : list) {
+                long current = (Long) element;
+                out.writeVarlong(zigzag(current - previous));
+                previous = current;
+            }
+        } else if (value instanceof List<?> list) {
+            out.write(TAG_LIST);
+            out.writeVarint(list.size());
+            for (Object element : list) {
+                writeValue(out, element);
+            }
+        } else if (value instanceof Map<?, ?> map) {
+            out.write(TAG_MAP);
+            out.writeVarint(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeValue(out, entry.getKey());
+                writeValue(out, entry.getValue());
+            }
+        } else {
+            Schema schema = schemaByType.get(value.getClass());
+            if (schema == null) {
+                out.write(TAG_JSON);
+                byte[] json = fallback.serialize(value);
+                out.writeVarint(json.length);
+                out.writeBytes(json, 0, json.length);
+                return;
+            }
+            out.write(TAG_OBJECT);
+            out.writeVarint(schema.id);
+            try {
+                for (Field field : schema.fields) {
+                    writeValue(out, field.get(value));
+                }
+            } catch (IllegalAccessException e) {
+                throw new SerializationException("缓存数据序列化失败: " + schema.type.getName(), e);
+            }
+        }
+    }
+
+    private Object readValue(Input in) throws ReflectiveOperationException {
+        int tag = in.read();
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_TRUE:
+                return Boolean.TRUE;
+            case TAG_FALSE:
+                return Boolean.FALSE;
+            case TAG_INT:
+                return (int) unzigzag(in.readVarlong());
+            case TAG_LONG:
+                return unzigzag(in.readVarlong());
+            case TAG_DOUBLE:
+                return Double.longBitsToDouble(in.readLong());
+            case TAG_STRING:
+                return in.readString();
+            case TAG_DECIMAL: {
+                int scale = (int) unzigzag(in.readVarlong());
+                return new BigDecimal(new BigInteger(in.readBytes(in.readVarint())), scale);
+            }
+            case TAG_DATE_TIME: {
+                long seconds = unzigzag(in.readVarlong());
+                return LocalDateTime.ofEpochSecond(seconds, in.readVarint(), ZoneOffset.UTC);
+            }
+            case TAG_DATE:
+                return LocalDate.ofEpochDay(unzigzag(in.readVarlong()));
+            case TAG_LIST: {
+                int size = in.readVarint();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in));
+                }
+                return list;
+            }
+            case TAG_LONG_LIST: {
+                int size = in.readVarint();
+                List<Object> list = new ArrayList<>(size);
+                long previous = 0;
+                for (int i = 0; i < size; i++) {
+                    previous += unzigzag(in.readVarlong());
+                    list.add(previous);
+                }
+                return list;
+            }
+            case TAG_MAP: {
+                int size = in.readVarint();
+                Map<Object, Object> map = new LinkedHashMap<>(size * 4 / 3 + 1);
+                for (int i = 0; i < size; i++) {
+                    map.put(readValue(in), readValue(in));
+                }
+                return map;
+            }
+            case TAG_OBJECT: {
+                Schema schema = schemas.get(in.readVarint());
+                Object object = schema.constructor.newInstance();
+                for (Field field : schema.fields) {
+                    Object value = readValue(in);
+                    if (value != null) {
+                        field.set(object, value);
+                    }
+                }
+                return object;
+            }
+            case TAG_JSON:
+                return fallback.deserialize(in.readBytes(in.readVarint()));
+            default:
+                throw new SerializationException("未知的缓存数据类型标记: " + tag);
+        }
+    }
+
+    private static boolean isLongList(List<?> list) {
+        if (list.isEmpty()) {
+            return false;
+        }
+        for (Object element : list) {
+            if (!(element instanceof Long)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = DEFLATER.get();
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            Output out = new Output(data.length / 2 + 16);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                out.writeBytes(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.reset();
+        }
+    }
+
+    private static byte[] inflate(byte[] data, int offset, int length) {
+        Inflater inflater = INFLATER.get();
+        try {
+            inflater.setInput(data, offset, data.length - offset);
+            byte[] result = new byte[length];
+            int read = 0;
+            while (read < length && !inflater.finished()) {
+                int n = inflater.inflate(result, read, length - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += n;
+            }
+            if (read != length) {
+                throw new SerializationException("缓存数据解压长度不符");
+            }
+            return result;
+        } catch (DataFormatException e) {
+            throw new SerializationException("缓存数据解压失败", e);
+        } finally {
+            inflater.reset();
+        }
+    }
+
+    /**
+     * 注册类型的结构：父类字段在前，同一类中按字段名排序，跳过静态与transient字段
+     */
+    private static final class Schema {
+        private final int id;
+        private final Class<?> type;
+        private final Field[] fields;
+        private final Constructor<?> constructor;
+
+        Schema(int id, Class<?> type) {
+            this.id = id;
+            this.type = type;
+            List<Field> collected = new ArrayList<>();
+            collectFields(type, collected);
+            this.fields = collected.toArray(new Field[0]);
+            try {
+                this.constructor = type.getDeclaredConstructor();
+                this.constructor.setAccessible(true);
+            } catch (NoSuchMethodException e) {
+                throw new IllegalArgumentException("注册类型缺少无参构造方法: " + type.getName(), e);
+            }
+        }
+
+        private static void collectFields(Class<?> type, List<Field> collected) {
+            if (type == null || type == Object.class) {
+                return;
+            }
+            collectFields(type.getSuperclass(), collected);
+            Field[] declared = type.getDeclaredFields();
+            Arrays.sort(declared, Comparator.comparing(Field::getName));
+            for (Field field : declared) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) {
+                    continue;
+                }
+                field.setAccessible(true);
+                collected.add(field);
+            }
+        }
+
+        String describe() {
+            StringBuilder sb = new StringBuilder(type.getName()).append('{');
+            for (Field field : fields) {
+                sb.append(field.getName()).append(':').append(field.getType().getName()).append(';');
+            }
+            return sb.append('}').toString();
+        }
+    }
+
+    private static final class Output {
+        private byte[] buf;
+        private int pos;
+
+        Output(int capacity) {
+            this.buf = new byte[Math.max(capacity, 16)];
+        }
+
+        void write(int b) {
+            ensure(1);
+            buf[pos++] = (byte) b;
+        }
+
+        void writeVarint(int value) {
+            writeVarlong(value & 0xFFFFFFFFL);
+        }
+
+        void writeVarlong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buf[pos++] = (byte) value;
+        }
+
+        void writeLong(long value) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buf[pos++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length);
+            writeBytes(bytes, 0, bytes.length);
+        }
+
+        void writeBytes(byte[] bytes, int offset, int length) {
+            ensure(length);
+            System.arraycopy(bytes, offset, buf, pos, length);
+            pos += length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, pos);
+        }
+
+        private void ensure(int extra) {
+            if (pos + extra > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + extra));
+            }
+        }
+    }
+
+    private static final class Input {
+        private final byte[] buf;
+        private int pos;
+
+        Input(byte[] buf, int pos) {
+            this.buf = buf;
+            this.pos = pos;
+        }
+
+        int read() {
+            if (pos >= buf.length) {
+                throw new SerializationException("缓存数据不完整");
+            }
+            return buf[pos++] & 0xFF;
+        }
+
+        int readVarint() {
+            return (int) readVarlong();
+        }
+
+        long readVarlong() {
+            long value = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = read();
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        long readLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | read();
+            }
+            return value;
+        }
+
+        String readString() {
+            int length = readVarint();
+            String value = new String(buf, checked(length), length, StandardCharsets.UTF_8);
+            pos += length;
+            return value;
+        }
+
+        byte[] readBytes(int length) {
+            byte[] bytes = Arrays.copyOfRange(buf, checked(length), pos + length);
+            pos += length;
+            return bytes;
+        }
+
+        private int checked(int length) {
+            if (length < 0 || pos + length > buf.length) {
+                throw new SerializationException("缓存数据不完整");
+            }
+            return pos;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.ecommerce.common.cache;
+
+import com.ecommerce.common.util.LocalLruCache;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 两级缓存：进程内LRU（一级）在前，Redis缓存（二级）在后
+ * 一级命中不经过网络和反序列化；失效时删除两级并广播，其他节点收到后删除各自的一级条目
+ * 加载期间发生过失效时不写入一级缓存，避免旧值在失效之后回填；广播丢失时一级条目最多存活ttl
+ * 一级缓存直接返回缓存对象本身，调用方不应修改返回值
+ * 二级缓存中的值包装为CacheEnvelope；带加载器的读取（@Cacheable(sync = true)）经CacheLoadCoordinator
+ * 合并并发未命中、跨节点租约回源，并在过期前概率提前刷新
+ */
+public class TwoLevelCache implements Cache {
+
+    private final String name;
+    private final Cache redisCache;
+    private final LocalLruCache<String, Object> localCache;
+    private final TwoLevelCacheManager manager;
+    private final CacheLoadCoordinator coordinator;
+
+    /**
+     * 二级缓存有效期，用于提前刷新
+     */
+    private final Duration ttl;
+
+    /**
+     * 失效计数，本地或远程每发生一次失效加一
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    TwoLevelCache(String name, Cache redisCache, LocalLruCache<String, Object> localCache, TwoLevelCacheManager manager,
+                  CacheLoadCoordinator coordinator, Duration ttl) {
+        this.name = name;
+        this.redisCache = redisCache;
+        this.localCache = localCache;
+        this.manager = manager;
+        this.coordinator = coordinator;
+        this.ttl = ttl;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return redisCache.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = key.toString();
+        Object value = localCache.get(localKey);
+        if (value != null) {
+            return new SimpleValueWrapper(value);
+        }
+        long seen = invalidations.get();
+        CacheEnvelope<Object> envelope = readRemote(key);
+        if (envelope == null) {
+            return null;
+        }
+        putLocal(localKey, envelope.getValue(), seen);
+        return new SimpleValueWrapper(envelope.getValue());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("缓存值类型不匹配: " + type.getName());
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String localKey = key.toString();
+        Object value = localCache.get(localKey);
+        if (value != null) {
+            return (T) value;
+        }
+        long seen = invalidations.get();
+        T loaded = coordinator.get(name + "::" + localKey, () -> readRemote(key),
+                envelope -> redisCache.put(key, envelope), () -> call(key, valueLoader), ttl);
+        if (loaded != null) {
+            putLocal(localKey, loaded, seen);
+        }
+        return loaded;
+    }
+
+    /**
+     * 写入两级缓存，不广播：写入来自回源加载，其他节点的一级条目与之一致或将自然过期
+     */
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            evict(key);
+            return;
+        }
+        long seen = invalidations.get();
+        long expireAt = ttl.isZero() || ttl.isNegative() ? Long.MAX_VALUE : System.currentTimeMillis() + ttl.toMillis();
+        redisCache.put(key, new CacheEnvelope<>(value, 0, expireAt));
+        putLocal(key.toString(), value, seen);
+    }
+
+    /**
+     * 立即删除并广播；在事务中调用时提交后再删除一次，清除提交前被并发读取回填的旧值
+     */
+    @Override
+    public void evict(Object key) {
+        String localKey = key.toString();
+        evictNow(key, localKey);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictNow(key, localKey);
+                }
+            });
+        }
+    }
+
+    @Override
+    public void clear() {
+        invalidateAllLocal();
+        redisCache.clear();
+        manager.publish(name, null);
+    }
+
+    /**
+     * 删除一级缓存条目，收到其他节点的失效通知时调用
+     */
+    void invalidateLocal(String localKey) {
+        invalidations.incrementAndGet();
+        localCache.remove(localKey);
+    }
+
+    void invalidateAllLocal() {
+        invalidations.incrementAndGet();
+        localCache.clear();
+    }
+
+    private void evictNow(Object key, String localKey) {
+        invalidateLocal(localKey);
+        redisCache.evict(key);
+        manager.publish(name, localKey);
+    }
+
+    /**
+     * 读取二级缓存条目，兼容未包装的旧值
+     */
+    @SuppressWarnings("unchecked")
+    private <T> CacheEnvelope<T> readRemote(Object key) {
+        ValueWrapper wrapper = redisCache.get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof CacheEnvelope<?> envelope) {
+            return (CacheEnvelope<T>) envelope;
+        }
+        return new CacheEnvelope<>((T) value, 0, Long.MAX_VALUE);
+    }
+
+    private <T> T call(Object key, Callable<T> valueLoader) {
+        try {
+            return valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    private void putLocal(String localKey, Object value, long seen) {
+        if (invalidations.get() == seen) {
+            localCache.put(localKey, value);
+        }
+    }
+}
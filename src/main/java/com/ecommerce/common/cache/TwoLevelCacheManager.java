@@ -0,0 +1,101 @@
+package com.ecommerce.common.cache;
+
+import com.ecommerce.common.util.LocalLruCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 两级缓存管理器
+ * 对指定名称的缓存在Redis缓存前加一层进程内LRU，其余缓存直接使用Redis缓存；
+ * 失效通知通过Redis发布订阅在节点间传递，消息格式为"缓存名\n键"，只有缓存名表示清空
+ */
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager, MessageListener {
+
+    public static final String CHANNEL = "cache:invalidate";
+
+    private static final char SEPARATOR = '\n';
+
+    private final CacheManager redisCacheManager;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final Set<String> localCacheNames;
+    private final int localMaxEntries;
+    private final long localTtlMs;
+    private final CacheLoadCoordinator coordinator;
+    private final ConcurrentHashMap<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(CacheManager redisCacheManager, RedisTemplate<String, Object> redisTemplate,
+                                Set<String> localCacheNames, int localMaxEntries, long localTtlMs,
+                                CacheLoadCoordinator coordinator) {
+        this.redisCacheManager = redisCacheManager;
+        this.redisTemplate = redisTemplate;
+        this.localCacheNames = localCacheNames;
+        this.localMaxEntries = localMaxEntries;
+        this.localTtlMs = localTtlMs;
+        this.coordinator = coordinator;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        if (!localCacheNames.contains(name)) {
+            return redisCacheManager.getCache(name);
+        }
+        return caches.computeIfAbsent(name, cacheName -> {
+            Cache redisCache = redisCacheManager.getCache(cacheName);
+            LocalLruCache<String, Object> localCache = new LocalLruCache<>(localMaxEntries,
+                    Runtime.getRuntime().availableProcessors() * 4, localTtlMs);
+            Duration ttl = redisCache instanceof RedisCache cache
+                    ? cache.getCacheConfiguration().getTtlFunction().getTimeToLive(cacheName, null)
+                    : Duration.ZERO;
+            return new TwoLevelCache(cacheName, redisCache, localCache, this, coordinator, ttl);
+        });
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return redisCacheManager.getCacheNames();
+    }
+
+    /**
+     * 广播失效通知，key为null表示清空整个缓存
+     */
+    void publish(String cacheName, String key) {
+        String message = key == null ? cacheName : cacheName + SEPARATOR + key;
+        try {
+            byte[] channel = CHANNEL.getBytes(StandardCharsets.UTF_8);
+            byte[] body = message.getBytes(StandardCharsets.UTF_8);
+            redisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(channel, body));
+        } catch (Exception e) {
+            // 其他节点的一级条目在ttl内过期
+            log.warn("缓存失效通知发送失败，缓存: {}, 键: {}, 错误: {}", cacheName, key, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int sep = body.indexOf(SEPARATOR);
+        String cacheName = sep < 0 ? body : body.substring(0, sep);
+        TwoLevelCache cache = caches.get(cacheName);
+        if (cache == null) {
+            return;
+        }
+        if (sep < 0) {
+            cache.invalidateAllLocal();
+        } else {
+            cache.invalidateLocal(body.substring(sep + 1));
+        }
+    }
+}
@@ -1,10 +1,23 @@
 package com.ecommerce.common.config;
 
+import com.ecommerce.common.cache.CacheEnvelope;
+import com.ecommerce.common.cache.CacheLoadCoordinator;
+import com.ecommerce.common.cache.CompactRedisSerializer;
+import com.ecommerce.common.cache.TwoLevelCacheManager;
+import com.ecommerce.model.entity.Inventory;
+import com.ecommerce.model.entity.Product;
+import com.ecommerce.model.entity.Store;
+import com.ecommerce.model.vo.ProductSearchIds;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.data.redis.cache.RedisCacheManager;
@@ -18,71 +31,122 @@ import com.fasterxml.jackson.databind.type.CollectionType;
 import com.fasterxml.jackson.databind.JavaType;
 import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @Configuration
 @EnableCaching
 public class RedisConfig {
 
+    /**
+     * 紧凑序列化的注册类型，调整顺序或增删类型会改变结构指纹，已有缓存按未命中处理
+     */
+    public static final List<Class<?>> COMPACT_TYPES = List.of(
+            CacheEnvelope.class, Product.class, Inventory.class, Store.class, ProductSearchIds.class);
+
     @Bean
-    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory factory) {
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory factory,
+                                                       RedisSerializer<Object> redisValueSerializer) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(factory);
 
-        // 配置ObjectMapper支持Java 8时间类型
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
-        objectMapper.registerModule(new JavaTimeModule());
-        objectMapper.disable(com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
-        // 忽略未知属性，避免反序列化失败
-        objectMapper.configure(com.fasterxml.jackson.databind.DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-        // 启用默认类型信息，解决反序列化类型丢失问题
-        objectMapper.activateDefaultTyping(objectMapper.getPolymorphicTypeValidator(), ObjectMapper.DefaultTyping.NON_FINAL);
-        
-        Jackson2JsonRedisSerializer<Object> jsonSerializer = new Jackson2JsonRedisSerializer<>(Object.class);
-        jsonSerializer.setObjectMapper(objectMapper);
-
         // 设置 key 的序列化方式
         template.setKeySerializer(new StringRedisSerializer());
         // 设置 value 的序列化方式
-        template.setValueSerializer(jsonSerializer);
+        template.setValueSerializer(redisValueSerializer);
         // 设置 hash key 的序列化方式
         template.setHashKeySerializer(new StringRedisSerializer());
         // 设置 hash value 的序列化方式
-        template.setHashValueSerializer(jsonSerializer);
+        template.setHashValueSerializer(redisValueSerializer);
 
         template.afterPropertiesSet();
         return template;
     }
 
+    /**
+     * Redis值序列化器：compact为紧凑二进制格式（注册类型、List与Map），其余值及json配置使用带类型信息的JSON
+     * 紧凑格式可读取JSON格式的已有数据，反之不行；滚动发布时先全部升级再切换为compact
+     */
     @Bean
-    public RedisCacheManager cacheManager(RedisConnectionFactory factory) {
-        // 配置ObjectMapper支持Java 8时间类型
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
-        objectMapper.registerModule(new JavaTimeModule());
-        objectMapper.disable(com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
-        // 忽略未知属性，避免反序列化失败
-        objectMapper.configure(com.fasterxml.jackson.databind.DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-        // 启用默认类型信息，解决反序列化类型丢失问题
-        objectMapper.activateDefaultTyping(objectMapper.getPolymorphicTypeValidator(), ObjectMapper.DefaultTyping.NON_FINAL);
-        
-        Jackson2JsonRedisSerializer<Object> jsonSerializer = new Jackson2JsonRedisSerializer<>(Object.class);
-        jsonSerializer.setObjectMapper(objectMapper);
-        
+    public RedisSerializer<Object> redisValueSerializer(@Value("${ecommerce.redis.serializer:compact}") String format,
+                                                        @Value("${ecommerce.redis.compress-threshold-bytes:4096}") int compressThreshold) {
+        Jackson2JsonRedisSerializer<Object> jsonSerializer = jsonSerializer();
+        if ("json".equalsIgnoreCase(format)) {
+            return jsonSerializer;
+        }
+        return new CompactRedisSerializer(jsonSerializer, compressThreshold, COMPACT_TYPES);
+    }
+
+    /**
+     * 缓存管理器：product:detail等读多写少的缓存在Redis前加进程内一级缓存，节点间通过发布订阅失效
+     */
+    @Bean
+    public CacheManager cacheManager(RedisConnectionFactory factory,
+                                     RedisTemplate<String, Object> redisTemplate,
+                                     RedisMessageListenerContainer redisMessageListenerContainer,
+                                     CacheLoadCoordinator cacheLoadCoordinator,
+                                     RedisSerializer<Object> redisValueSerializer,
+                                     @Value("${ecommerce.cache.local.cache-names:product:detail}") Set<String> localCacheNames,
+                                     @Value("${ecommerce.cache.local.max-entries:10000}") int localMaxEntries,
+                                     @Value("${ecommerce.cache.local.ttl-ms:60000}") long localTtlMs) {
         RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(Duration.ofMinutes(30))
                 .disableCachingNullValues()
                 .serializeValuesWith(RedisSerializationContext.SerializationPair
-                        .fromSerializer(jsonSerializer));
+                        .fromSerializer(redisValueSerializer));
 
         Map<String, RedisCacheConfiguration> cacheConfigurations = new HashMap<>();
         cacheConfigurations.put("products", config.entryTtl(Duration.ofHours(1)));
         cacheConfigurations.put("orders", config.entryTtl(Duration.ofMinutes(15)));
 
-        return RedisCacheManager.builder(factory)
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(factory)
                 .cacheDefaults(config)
                 .withInitialCacheConfigurations(cacheConfigurations)
                 .build();
+        redisCacheManager.afterPropertiesSet();
+
+        TwoLevelCacheManager cacheManager = new TwoLevelCacheManager(redisCacheManager, redisTemplate,
+                localCacheNames, localMaxEntries, localTtlMs, cacheLoadCoordinator);
+        redisMessageListenerContainer.addMessageListener(cacheManager, new ChannelTopic(TwoLevelCacheManager.CHANNEL));
+        return cacheManager;
+    }
+
+    /**
+     * 缓存回源协调器：合并并发未命中、跨节点租约回源、过期前概率提前刷新
+     */
+    @Bean
+    public CacheLoadCoordinator cacheLoadCoordinator(RedisTemplate<String, Object> redisTemplate,
+                                                     @Value("${ecommerce.cache.load.lease-ms:3000}") long leaseMs,
+                                                     @Value("${ecommerce.cache.load.wait-ms:1000}") long waitMs,
+                                                     @Value("${ecommerce.cache.load.poll-ms:20}") long pollMs,
+                                                     @Value("${ecommerce.cache.load.early-refresh-beta:1.0}") double beta) {
+        return new CacheLoadCoordinator(redisTemplate, leaseMs, waitMs, pollMs, beta);
+    }
+
+    /**
+     * Redis发布订阅监听容器，用于各节点本地缓存的失效通知
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory factory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(factory);
+        return container;
+    }
+
+    /**
+     * 带类型信息的JSON序列化器，支持Java 8时间类型
+     */
+    public static Jackson2JsonRedisSerializer<Object> jsonSerializer() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.disable(com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        // 忽略未知属性，避免反序列化失败
+        objectMapper.configure(com.fasterxml.jackson.databind.DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        // 启用默认类型信息，解决反序列化类型丢失问题
+        objectMapper.activateDefaultTyping(objectMapper.getPolymorphicTypeValidator(), ObjectMapper.DefaultTyping.NON_FINAL);
+
+        return new Jackson2JsonRedisSerializer<>(objectMapper, Object.class);
     }
-}
\ No newline at end of file
+}
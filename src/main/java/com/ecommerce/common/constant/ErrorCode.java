@@ -21,6 +21,8 @@ public enum ErrorCode {
     ORDER_NOT_FOUND(4001, "订单不存在"),
     ORDER_ALREADY_PAID(4002, "订单已支付，无法取消"),
     ORDER_ALREADY_CANCELLED(4003, "订单已取消"),
+    REQUEST_PROCESSING(4004, "相同请求正在处理中"),
+    IDEMPOTENCY_KEY_REUSED(4005, "幂等键已用于其他请求"),
 
     // 库存相关
     INVENTORY_LOCK_FAILED(5001, "库存锁定失败"),
@@ -0,0 +1,28 @@
+package com.ecommerce.common.result;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 游标分页结果
+ */
+@Data
+public class CursorPageResult<T> {
+    private List<T> list;
+    private int pageSize;
+    private boolean hasMore;
+    /**
+     * 下一页的继续令牌，没有更多数据时为null
+     */
+    private String nextCursor;
+
+    public static <T> CursorPageResult<T> of(List<T> list, int pageSize, String nextCursor) {
+        CursorPageResult<T> result = new CursorPageResult<>();
+        result.setList(list);
+        result.setPageSize(pageSize);
+        result.setHasMore(nextCursor != null);
+        result.setNextCursor(nextCursor);
+        return result;
+    }
+}
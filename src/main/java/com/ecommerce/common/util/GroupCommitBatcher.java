@@ -0,0 +1,173 @@
+package com.ecommerce.common.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 组提交批处理器
+ * 调用方只把记录放入有界队列，由单个后台线程攒批后一次性写出：队列中有记录时最多等待lingerMs凑满maxBatchSize，
+ * 写出失败按指数退避重试；队列满时在调用线程中先写出队列中已有的记录、再写出本条，起到背压作用
+ * 从队列取出记录与写出都在同一把锁内完成，后台线程、flush与队列满时的直接写出之间保持放入顺序
+ */
+@Slf4j
+public class GroupCommitBatcher<T> {
+
+    private static final long MAX_BACKOFF_MS = 5000;
+
+    private final String name;
+    private final int maxBatchSize;
+    private final long lingerMs;
+    private final int maxRetries;
+    private final Consumer<List<T>> writer;
+    private final BlockingQueue<T> queue;
+    /**
+     * 队列中有新记录的信号，后台线程等待信号时不持有锁、也不取出记录
+     */
+    private final Semaphore available = new Semaphore(0);
+    private final Thread worker;
+    private final Object writeLock = new Object();
+    private volatile boolean running = true;
+
+    public GroupCommitBatcher(String name, int capacity, int maxBatchSize, long lingerMs, int maxRetries, Consumer<List<T>> writer) {
+        if (capacity <= 0 || maxBatchSize <= 0 || lingerMs < 0 || maxRetries < 0) {
+            throw new IllegalArgumentException("批处理器参数无效");
+        }
+        this.name = name;
+        this.maxBatchSize = maxBatchSize;
+        this.lingerMs = lingerMs;
+        this.maxRetries = maxRetries;
+        this.writer = writer;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.worker = new Thread(this::run, name + "-batcher");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * 放入一条记录，队列已满时在当前线程写出队列中已有的记录和本条记录
+     */
+    public void add(T item) {
+        if (running && queue.offer(item)) {
+            available.release();
+            return;
+        }
+        log.warn("{} 批处理队列已满，在调用线程中写出", name);
+        synchronized (writeLock) {
+            // 队列中的记录先于本条放入，须先写出
+            drainAndWrite();
+            writeBatch(List.of(item));
+        }
+    }
+
+    /**
+     * 写出当前队列中的全部记录，返回时此前放入的记录均已写出（或重试耗尽）
+     */
+    public void flush() {
+        synchronized (writeLock) {
+            drainAndWrite();
+        }
+    }
+
+    /**
+     * 停止后台线程并写出剩余记录
+     */
+    public void shutdown() {
+        running = false;
+        worker.interrupt();
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    private void run() {
+        List<T> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                available.acquire();
+            } catch (InterruptedException e) {
+                // 停止时队列中剩余的记录由shutdown写出
+                continue;
+            }
+            synchronized (writeLock) {
+                available.drainPermits();
+                T first = queue.poll();
+                if (first == null) {
+                    // 已由flush写出
+                    continue;
+                }
+                batch.add(first);
+                try {
+                    linger(batch);
+                } catch (InterruptedException e) {
+                    // 停止时先写出已取出的记录
+                }
+                writeBatch(batch);
+                batch.clear();
+                if (!queue.isEmpty()) {
+                    available.release();
+                }
+            }
+        }
+    }
+
+    /**
+     * 最多等待lingerMs，把批次凑到maxBatchSize
+     */
+    private void linger(List<T> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+        while (batch.size() < maxBatchSize) {
+            if (queue.drainTo(batch, maxBatchSize - batch.size()) > 0) {
+                continue;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            T next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void drainAndWrite() {
+        List<T> batch = new ArrayList<>(maxBatchSize);
+        while (queue.drainTo(batch, maxBatchSize) > 0) {
+            writeBatch(batch);
+            batch.clear();
+        }
+    }
+
+    private void writeBatch(List<T> batch) {
+        long backoffMs = 100;
+        for (int attempt = 0; ; attempt++) {
+            try {
+                writer.accept(batch);
+                return;
+            } catch (Exception e) {
+                if (attempt >= maxRetries) {
+                    log.error("{} 批量写出失败，重试次数耗尽，丢弃 {} 条记录: {}", name, batch.size(), batch, e);
+                    return;
+                }
+                log.warn("{} 批量写出失败，{}ms后重试，记录数: {}, 错误: {}", name, backoffMs, batch.size(), e.getMessage());
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+                backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+            }
+        }
+    }
+}
@@ -1,25 +1,162 @@
 package com.ecommerce.common.util;
 
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+/**
+ * 雪花算法ID生成器
+ * 64位ID = 符号位(1) + 时间戳 + 数据中心ID + 机器ID + 序列号，各部分位数可配置
+ * 最近一次的时间戳与序列号打包在一个AtomicLong中，通过CAS无锁更新
+ */
 @Component
 public class IdGenerator {
 
+    private final long epoch;
+    private final long datacenterId;
+    private final long workerId;
+    private final int sequenceBits;
+    private final int workerIdShift;
+    private final int datacenterIdShift;
+    private final int timestampShift;
+    private final long sequenceMask;
+    private final long maxTimestamp;
+    private final long maxBackwardMillis;
+    private final LongSupplier clock;
+
+    /**
+     * 高位为最近一次使用的时间戳（相对epoch），低sequenceBits位为该毫秒内已使用的序列号
+     */
+    private final AtomicLong state = new AtomicLong(-1L);
+
+    @Autowired
+    public IdGenerator(@Value("${ecommerce.id.epoch:1704067200000}") long epoch,
+                       @Value("${ecommerce.id.datacenter-id:0}") long datacenterId,
+                       @Value("${ecommerce.id.worker-id:0}") long workerId,
+                       @Value("${ecommerce.id.datacenter-id-bits:5}") int datacenterIdBits,
+                       @Value("${ecommerce.id.worker-id-bits:5}") int workerIdBits,
+                       @Value("${ecommerce.id.sequence-bits:12}") int sequenceBits,
+                       @Value("${ecommerce.id.max-backward-millis:10}") long maxBackwardMillis) {
+        this(epoch, datacenterId, workerId, datacenterIdBits, workerIdBits, sequenceBits, maxBackwardMillis,
+                System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock 毫秒时钟，测试时可替换以模拟时钟回拨与序列号用尽
+     */
+    IdGenerator(long epoch, long datacenterId, long workerId, int datacenterIdBits, int workerIdBits,
+                int sequenceBits, long maxBackwardMillis, LongSupplier clock) {
+        int timestampBits = 63 - datacenterIdBits - workerIdBits - sequenceBits;
+        if (datacenterIdBits < 0 || workerIdBits < 0 || sequenceBits < 1 || timestampBits < 32) {
+            throw new IllegalArgumentException("ID位数配置无效，时间戳至少需要32位");
+        }
+        if (datacenterId < 0 || datacenterId > ~(-1L << datacenterIdBits)) {
+            throw new IllegalArgumentException("数据中心ID超出范围: " + datacenterId);
+        }
+        if (workerId < 0 || workerId > ~(-1L << workerIdBits)) {
+            throw new IllegalArgumentException("机器ID超出范围: " + workerId);
+        }
+        this.epoch = epoch;
+        this.datacenterId = datacenterId;
+        this.workerId = workerId;
+        this.sequenceBits = sequenceBits;
+        this.workerIdShift = sequenceBits;
+        this.datacenterIdShift = sequenceBits + workerIdBits;
+        this.timestampShift = sequenceBits + workerIdBits + datacenterIdBits;
+        this.sequenceMask = ~(-1L << sequenceBits);
+        this.maxTimestamp = ~(-1L << timestampBits);
+        this.maxBackwardMillis = maxBackwardMillis;
+        this.clock = clock;
+    }
+
     public static String generateUUID() {
         return UUID.randomUUID().toString().replaceAll("-", "");
     }
 
-    public static long generateSnowflakeId() {
-        // TODO: 实现雪花算法ID生成
-        return System.currentTimeMillis();
-    }
-    
     /**
      * 生成唯一ID
      * @return 唯一ID
      */
     public long nextId() {
-        return generateSnowflakeId();
+        long[] ids = new long[1];
+        fill(ids, 0, 1);
+        return ids[0];
+    }
+
+    /**
+     * 批量生成唯一ID，每个毫秒内通过一次CAS占用一段连续的序列号
+     * @param n 数量
+     * @return 按生成顺序递增的ID
+     */
+    public long[] nextIds(int n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("ID数量必须大于0");
+        }
+        long[] ids = new long[n];
+        int filled = 0;
+        while (filled < n) {
+            filled += fill(ids, filled, n - filled);
+        }
+        return ids;
+    }
+
+    /**
+     * 占用当前毫秒内最多count个序列号并写入ids
+     * @return 实际生成的数量
+     */
+    private int fill(long[] ids, int offset, int count) {
+        while (true) {
+            long current = state.get();
+            long lastTimestamp = current < 0 ? -1L : current >>> sequenceBits;
+            long lastSequence = current < 0 ? sequenceMask : current & sequenceMask;
+            long now = currentTimestamp();
+
+            long timestamp;
+            long firstSequence;
+            if (now > lastTimestamp) {
+                timestamp = now;
+                firstSequence = 0;
+            } else {
+                // 时钟回拨：小幅回拨沿用上次的时间戳继续分配，超过阈值则拒绝生成
+                if (lastTimestamp - now > maxBackwardMillis) {
+                    throw new IllegalStateException("系统时钟回拨" + (lastTimestamp - now) + "ms，拒绝生成ID");
+                }
+                if (lastSequence == sequenceMask) {
+                    // 当前毫秒序列号已用完，借用下一毫秒，但不超过允许的偏差
+                    if (lastTimestamp + 1 - now > maxBackwardMillis) {
+                        Thread.onSpinWait();
+                        continue;
+                    }
+                    timestamp = lastTimestamp + 1;
+                    firstSequence = 0;
+                } else {
+                    timestamp = lastTimestamp;
+                    firstSequence = lastSequence + 1;
+                }
+            }
+            if (timestamp > maxTimestamp) {
+                throw new IllegalStateException("时间戳超出ID可表示范围");
+            }
+
+            int taken = (int) Math.min(count, sequenceMask - firstSequence + 1);
+            long lastTaken = firstSequence + taken - 1;
+            if (!state.compareAndSet(current, (timestamp << sequenceBits) | lastTaken)) {
+                continue;
+            }
+
+            long base = (timestamp << timestampShift) | (datacenterId << datacenterIdShift) | (workerId << workerIdShift);
+            for (int i = 0; i < taken; i++) {
+                ids[offset + i] = base | (firstSequence + i);
+            }
+            return taken;
+        }
+    }
+
+    private long currentTimestamp() {
+        return clock.getAsLong() - epoch;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,92 @@
+package com.ecommerce.common.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 进程内有界LRU缓存
+ * 按键哈希分段，每段是按访问顺序排列的LinkedHashMap，超出容量时淘汰该段最久未访问的条目；
+ * 条目超过ttlMs后视为不存在，分段降低了并发读写时的锁竞争
+ */
+public class LocalLruCache<K, V> {
+
+    private record Node<V>(V value, long expireAt) {
+    }
+
+    private final List<Map<K, Node<V>>> segments;
+    private final long ttlMs;
+
+    public LocalLruCache(int maxEntries, int segmentCount, long ttlMs) {
+        if (maxEntries <= 0 || segmentCount <= 0 || ttlMs <= 0) {
+            throw new IllegalArgumentException("本地缓存参数无效");
+        }
+        this.ttlMs = ttlMs;
+        int segmentCapacity = Math.max(1, maxEntries / segmentCount);
+        this.segments = new ArrayList<>(segmentCount);
+        for (int i = 0; i < segmentCount; i++) {
+            segments.add(new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, Node<V>> eldest) {
+                    return size() > segmentCapacity;
+                }
+            });
+        }
+    }
+
+    /**
+     * 读取条目，不存在或已过期时返回null
+     */
+    public V get(K key) {
+        Map<K, Node<V>> segment = segmentFor(key);
+        synchronized (segment) {
+            Node<V> node = segment.get(key);
+            if (node == null) {
+                return null;
+            }
+            if (node.expireAt() <= System.currentTimeMillis()) {
+                segment.remove(key);
+                return null;
+            }
+            return node.value();
+        }
+    }
+
+    public void put(K key, V value) {
+        Map<K, Node<V>> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.put(key, new Node<>(value, System.currentTimeMillis() + ttlMs));
+        }
+    }
+
+    public void remove(K key) {
+        Map<K, Node<V>> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.remove(key);
+        }
+    }
+
+    public void clear() {
+        for (Map<K, Node<V>> segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Map<K, Node<V>> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    private Map<K, Node<V>> segmentFor(K key) {
+        int hash = key.hashCode();
+        return segments.get(Math.floorMod(hash ^ (hash >>> 16), segments.size()));
+    }
+}
@@ -1,5 +1,9 @@
 package com.ecommerce.common.util;
 
+import com.github.pagehelper.PageInfo;
+
+import java.util.List;
+
 public class PageUtils {
 
     public static void validatePageParams(int pageNum, int pageSize) {
@@ -10,4 +14,20 @@ public class PageUtils {
             throw new IllegalArgumentException("每页大小必须在1-100之间");
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 由当前页数据和总数构造分页信息，用于不经PageHelper分页的查询
+     */
+    public static <T> PageInfo<T> toPageInfo(List<T> list, long total, int pageNum, int pageSize) {
+        PageInfo<T> pageInfo = new PageInfo<>(list);
+        pageInfo.setTotal(total);
+        pageInfo.setPageNum(pageNum);
+        pageInfo.setPageSize(pageSize);
+        pageInfo.setPages((int) ((total + pageSize - 1) / pageSize));
+        pageInfo.setIsFirstPage(pageNum == 1);
+        pageInfo.setIsLastPage(pageNum >= pageInfo.getPages());
+        pageInfo.setHasPreviousPage(pageNum > 1);
+        pageInfo.setHasNextPage(pageNum < pageInfo.getPages());
+        return pageInfo;
+    }
+}
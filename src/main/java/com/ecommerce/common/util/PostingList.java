@@ -0,0 +1,150 @@
+package com.ecommerce.common.util;
+
+import java.util.Arrays;
+
+/**
+ * 压缩倒排列表
+ * 升序不重复的ID按与前一个ID的差值做变长编码（每字节7位，最高位表示后续还有字节），
+ * 相邻ID的差值通常很小，每个ID平均只占1~2字节；按升序追加时直接写入末尾，其他修改重新编码
+ * 非线程安全，由调用方加锁
+ */
+public class PostingList {
+
+    private byte[] data = new byte[8];
+    private int length;
+    private int size;
+    private long last = -1;
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 加入ID，已存在时忽略
+     */
+    public void add(long id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("ID不能为负数: " + id);
+        }
+        if (id > last) {
+            append(size == 0 ? id : id - last - 1, id);
+            return;
+        }
+        long[] ids = toArray();
+        int index = Arrays.binarySearch(ids, id);
+        if (index >= 0) {
+            return;
+        }
+        int insertAt = -index - 1;
+        long[] updated = new long[ids.length + 1];
+        System.arraycopy(ids, 0, updated, 0, insertAt);
+        updated[insertAt] = id;
+        System.arraycopy(ids, insertAt, updated, insertAt + 1, ids.length - insertAt);
+        encode(updated, updated.length);
+    }
+
+    /**
+     * 移除ID，不存在时忽略
+     */
+    public void remove(long id) {
+        if (id > last || size == 0) {
+            return;
+        }
+        long[] ids = toArray();
+        int index = Arrays.binarySearch(ids, id);
+        if (index < 0) {
+            return;
+        }
+        System.arraycopy(ids, index + 1, ids, index, ids.length - index - 1);
+        encode(ids, ids.length - 1);
+    }
+
+    /**
+     * 解码为升序数组
+     */
+    public long[] toArray() {
+        long[] ids = new long[size];
+        int pos = 0;
+        long previous = -1;
+        for (int i = 0; i < size; i++) {
+            long delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[pos++];
+                delta |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            previous = i == 0 ? delta : previous + delta + 1;
+            ids[i] = previous;
+        }
+        return ids;
+    }
+
+    /**
+     * 与升序数组求交集，边解码边归并，不生成本列表的完整数组
+     */
+    public long[] retainAll(long[] sortedIds) {
+        long[] result = new long[Math.min(size, sortedIds.length)];
+        int count = 0;
+        int pos = 0;
+        int other = 0;
+        long previous = -1;
+        for (int i = 0; i < size && other < sortedIds.length; i++) {
+            long delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[pos++];
+                delta |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            previous = i == 0 ? delta : previous + delta + 1;
+            while (other < sortedIds.length && sortedIds[other] < previous) {
+                other++;
+            }
+            if (other < sortedIds.length && sortedIds[other] == previous) {
+                result[count++] = previous;
+                other++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * 编码后占用的字节数
+     */
+    public int byteSize() {
+        return length;
+    }
+
+    private void encode(long[] ids, int count) {
+        data = new byte[Math.max(8, count * 2)];
+        length = 0;
+        size = 0;
+        last = -1;
+        for (int i = 0; i < count; i++) {
+            append(i == 0 ? ids[i] : ids[i] - last - 1, ids[i]);
+        }
+    }
+
+    /**
+     * 追加一个ID；delta为与前一个ID的差值减一（首个ID为其本身），使连续ID编码为0
+     */
+    private void append(long delta, long id) {
+        if (length + 10 > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, length + 10));
+        }
+        while ((delta & ~0x7FL) != 0) {
+            data[length++] = (byte) ((delta & 0x7F) | 0x80);
+            delta >>>= 7;
+        }
+        data[length++] = (byte) delta;
+        size++;
+        last = id;
+    }
+}
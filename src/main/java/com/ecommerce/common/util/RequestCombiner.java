@@ -0,0 +1,99 @@
+package com.ecommerce.common.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * 请求合并器
+ * 调用方把请求放入队列后竞争同一把锁，拿到锁的线程把队列中等待的请求（最多maxBatchSize个，含其他线程的）
+ * 合成一批执行一次，再把结果分别交还各请求；持锁执行期间到达的请求组成下一批，
+ * 并发越高每批越大，不额外等待凑批
+ */
+public class RequestCombiner<R, S> {
+
+    private final int maxBatchSize;
+    private final Function<List<R>, List<S>> executor;
+    private final Queue<Pending<R, S>> queue = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * @param maxBatchSize 每批最多合并的请求数
+     * @param executor 批量执行，按请求顺序返回等长的结果列表；抛出异常时该批请求均失败
+     */
+    public RequestCombiner(int maxBatchSize, Function<List<R>, List<S>> executor) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("每批请求数必须为正数");
+        }
+        this.maxBatchSize = maxBatchSize;
+        this.executor = executor;
+    }
+
+    /**
+     * 提交请求并等待结果，请求可能由当前线程或其他线程合并执行
+     */
+    public S submit(R request) {
+        Pending<R, S> pending = new Pending<>(request);
+        queue.add(pending);
+        lock.lock();
+        try {
+            // 队列先进先出，当前请求之前的请求执行完后必然轮到当前请求
+            while (!pending.done) {
+                executeBatch();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (pending.error != null) {
+            throw pending.error;
+        }
+        return pending.result;
+    }
+
+    private void executeBatch() {
+        List<Pending<R, S>> batch = new ArrayList<>();
+        Pending<R, S> next;
+        while (batch.size() < maxBatchSize && (next = queue.poll()) != null) {
+            batch.add(next);
+        }
+        List<R> requests = new ArrayList<>(batch.size());
+        for (Pending<R, S> pending : batch) {
+            requests.add(pending.request);
+        }
+
+        RuntimeException error = null;
+        List<S> results = null;
+        try {
+            results = executor.apply(requests);
+            if (results == null || results.size() != batch.size()) {
+                error = new IllegalStateException("批量执行结果数与请求数不一致");
+            }
+        } catch (RuntimeException e) {
+            error = e;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            Pending<R, S> pending = batch.get(i);
+            if (error != null) {
+                pending.error = error;
+            } else {
+                pending.result = results.get(i);
+            }
+            // 结果在锁内写入，提交线程拿到锁后可见
+            pending.done = true;
+        }
+    }
+
+    private static final class Pending<R, S> {
+        private final R request;
+        private S result;
+        private RuntimeException error;
+        private boolean done;
+
+        private Pending(R request) {
+            this.request = request;
+        }
+    }
+}
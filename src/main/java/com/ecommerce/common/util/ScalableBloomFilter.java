@@ -0,0 +1,151 @@
+package com.ecommerce.common.util;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 可扩容布隆过滤器（long型键）
+ * 由若干级位图组成，当前级插入数达到容量后追加一级，容量按倍数增长、误判率按比例收紧，
+ * 各级误判率之和不超过设定值；只能加入不能删除，判断不存在时一定不存在
+ * 线程安全：位图用原子数组，追加新级时加锁
+ */
+public class ScalableBloomFilter {
+
+    private static final int GROWTH = 2;
+    private static final double TIGHTENING = 0.5;
+
+    private volatile Stage[] stages;
+
+    /**
+     * @param initialCapacity 首级容量
+     * @param falsePositiveRate 总误判率
+     */
+    public ScalableBloomFilter(long initialCapacity, double falsePositiveRate) {
+        if (initialCapacity <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("布隆过滤器参数无效");
+        }
+        this.stages = new Stage[]{new Stage(initialCapacity, falsePositiveRate * (1 - TIGHTENING))};
+    }
+
+    public boolean mightContain(long key) {
+        long hash = mix(key);
+        for (Stage stage : stages) {
+            if (stage.mightContain(hash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void put(long key) {
+        long hash = mix(key);
+        Stage[] current = stages;
+        for (Stage stage : current) {
+            if (stage.mightContain(hash)) {
+                return;
+            }
+        }
+        Stage last = current[current.length - 1];
+        if (last.count.get() >= last.capacity) {
+            last = grow(current);
+        }
+        last.put(hash);
+    }
+
+    /**
+     * 位图占用的字节数
+     */
+    public long byteSize() {
+        long total = 0;
+        for (Stage stage : stages) {
+            total += (long) stage.bits.length() * Long.BYTES;
+        }
+        return total;
+    }
+
+    private synchronized Stage grow(Stage[] seen) {
+        Stage[] current = stages;
+        Stage last = current[current.length - 1];
+        if (current != seen && last.count.get() < last.capacity) {
+            // 其他线程已追加
+            return last;
+        }
+        Stage next = new Stage(last.capacity * GROWTH, last.falsePositiveRate * TIGHTENING);
+        Stage[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = next;
+        stages = updated;
+        return next;
+    }
+
+    /**
+     * 64位混合（MurmurHash3 fmix64），高低32位作为两个独立哈希
+     */
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    private static final class Stage {
+        private final long capacity;
+        private final double falsePositiveRate;
+        private final long bitCount;
+        private final int hashCount;
+        private final AtomicLongArray bits;
+        private final AtomicLong count = new AtomicLong();
+
+        Stage(long capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            this.falsePositiveRate = falsePositiveRate;
+            long words = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)) / Long.SIZE);
+            if (words > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("布隆过滤器容量过大: " + capacity);
+            }
+            this.bits = new AtomicLongArray((int) Math.max(1, words));
+            this.bitCount = (long) bits.length() * Long.SIZE;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * Math.log(2)));
+        }
+
+        boolean mightContain(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                long bit = index(h1, h2, i);
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void put(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                long bit = index(h1, h2, i);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long old;
+                do {
+                    old = bits.get(word);
+                    if ((old & mask) != 0) {
+                        break;
+                    }
+                } while (!bits.compareAndSet(word, old, old | mask));
+            }
+            count.incrementAndGet();
+        }
+
+        /**
+         * 双重哈希得到第i个位置
+         */
+        private long index(int h1, int h2, int i) {
+            long combined = (h1 & 0xFFFFFFFFL) + (long) i * (h2 & 0xFFFFFFFFL);
+            return combined % bitCount;
+        }
+    }
+}
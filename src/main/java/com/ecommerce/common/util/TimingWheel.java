@@ -0,0 +1,110 @@
+package com.ecommerce.common.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 分层时间轮
+ * 底层时间轮按tickMs推进，超出其范围的任务放入上层时间轮（上层的tick为下层一圈的跨度），
+ * 上层槽位到期时整体降级到下层，添加与到期处理均为O(1)，任务最多延迟一个tick触发
+ * 对外方法由synchronized保护，到期回调在推进线程中执行
+ */
+public class TimingWheel<T> {
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final long interval;
+    private final List<ArrayDeque<Entry<T>>> buckets;
+    private long currentTime;
+    private TimingWheel<T> overflowWheel;
+    private int size;
+
+    private record Entry<T>(T item, long deadline) {
+    }
+
+    public TimingWheel(long tickMs, int wheelSize, long startMs) {
+        if (tickMs <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("时间轮参数无效");
+        }
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.interval = tickMs * wheelSize;
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new ArrayDeque<>());
+        }
+        this.currentTime = startMs - (startMs % tickMs);
+    }
+
+    /**
+     * 添加任务
+     * @return false表示任务已到期，未加入时间轮，由调用方立即处理
+     */
+    public synchronized boolean add(T item, long deadlineMs) {
+        if (deadlineMs < currentTime) {
+            return false;
+        }
+        place(new Entry<>(item, deadlineMs));
+        size++;
+        return true;
+    }
+
+    /**
+     * 推进时间轮到nowMs，到期的任务交给expiredHandler
+     */
+    public synchronized void advance(long nowMs, Consumer<T> expiredHandler) {
+        while (currentTime + tickMs <= nowMs) {
+            currentTime += tickMs;
+
+            // 先处理刚结束的槽位，其中任务的到期时间都早于currentTime
+            ArrayDeque<Entry<T>> bucket = buckets.get((int) ((currentTime / tickMs - 1) % wheelSize));
+            while (!bucket.isEmpty()) {
+                size--;
+                expiredHandler.accept(bucket.poll().item());
+            }
+
+            // 再把上层时间轮到期的槽位降级到本层
+            if (overflowWheel != null) {
+                overflowWheel.cascade(currentTime, this::place);
+            }
+        }
+    }
+
+    /**
+     * 当前时间轮中的任务数
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private void place(Entry<T> entry) {
+        if (entry.deadline() < currentTime + interval) {
+            buckets.get((int) ((entry.deadline() / tickMs) % wheelSize)).add(entry);
+        } else {
+            if (overflowWheel == null) {
+                overflowWheel = new TimingWheel<>(interval, wheelSize, currentTime);
+            }
+            overflowWheel.place(entry);
+        }
+    }
+
+    /**
+     * 底层时间推进到timeMs时调用：到达本层tick边界则把覆盖[timeMs, timeMs + tickMs)的槽位交给下层重新放置
+     */
+    private void cascade(long timeMs, Consumer<Entry<T>> reinsert) {
+        if (timeMs % tickMs != 0) {
+            return;
+        }
+        currentTime = timeMs;
+        // 更上层先降级，使其任务能随本层槽位一起继续下放
+        if (overflowWheel != null) {
+            overflowWheel.cascade(timeMs, this::place);
+        }
+        ArrayDeque<Entry<T>> bucket = buckets.get((int) ((timeMs / tickMs) % wheelSize));
+        while (!bucket.isEmpty()) {
+            reinsert.accept(bucket.poll());
+        }
+    }
+}
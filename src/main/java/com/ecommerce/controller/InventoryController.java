@@ -6,7 +6,12 @@ import com.ecommerce.model.dto.InventoryCreateDTO;
 import com.ecommerce.model.dto.InventoryQueryDTO;
 import com.ecommerce.model.dto.InventoryUpdateDTO;
 import com.ecommerce.model.entity.Inventory;
+import com.ecommerce.model.entity.InventoryMovement;
+import com.ecommerce.model.vo.InventoryAdjustResult;
+import com.ecommerce.model.vo.InventoryLedgerMismatch;
 import com.ecommerce.model.vo.InventoryVO;
+import com.ecommerce.service.FlashSaleStockService;
+import com.ecommerce.service.InventoryLedgerService;
 import com.ecommerce.service.InventoryService;
 import com.ecommerce.common.util.PageUtils;
 import com.ecommerce.common.exception.BusinessException;
@@ -38,6 +43,12 @@ public class InventoryController {
 
     @Autowired
     private InventoryService inventoryService;
+    
+    @Autowired
+    private FlashSaleStockService flashSaleStockService;
+    
+    @Autowired
+    private InventoryLedgerService inventoryLedgerService;
 
     @Operation(summary = "获取商品库存信息", description = "根据商品ID获取库存详细信息")
     @ApiResponses({
@@ -176,24 +187,23 @@ public class InventoryController {
                 return Result.fail(400, "商品ID数量与库存变化量数量不匹配");
             }
             
+            List<InventoryUpdateDTO> adjustments = new ArrayList<>();
+            for (int i = 0; i < productIdArray.length; i++) {
+                InventoryUpdateDTO adjustment = new InventoryUpdateDTO();
+                adjustment.setProductId(Long.parseLong(productIdArray[i].trim()));
+                adjustment.setStockChange(Integer.parseInt(stockChangeArray[i].trim()));
+                adjustments.add(adjustment);
+            }
+            
+            InventoryAdjustResult adjustResult = inventoryService.bulkAdjustInventory(adjustments);
+            
             List<String> successList = new ArrayList<>();
             List<String> failList = new ArrayList<>();
-            
-            for (int i = 0; i < productIdArray.length; i++) {
-                try {
-                    Long productId = Long.parseLong(productIdArray[i].trim());
-                    Integer stockChange = Integer.parseInt(stockChangeArray[i].trim());
-                    log.info("正在处理商品ID: {}, 库存变化: {}", productId, stockChange);
-                    
-                    inventoryService.updateInventory(productId, stockChange);
-                    successList.add("商品ID " + productId);
-                    log.info("商品ID {} 库存更新成功", productId);
-                } catch (BusinessException e) {
-                    log.warn("商品ID {} 更新失败: {}", productIdArray[i], e.getMessage());
-                    failList.add("商品ID " + productIdArray[i] + ": " + e.getMessage());
-                } catch (Exception e) {
-                    log.error("商品ID {} 更新时发生异常", productIdArray[i], e);
-                    failList.add("商品ID " + productIdArray[i] + ": 系统异常");
+            for (InventoryAdjustResult.ItemResult item : adjustResult.getItems()) {
+                if (item.getStatus() == InventoryAdjustResult.AdjustStatus.APPLIED) {
+                    successList.add("商品ID " + item.getProductId());
+                } else {
+                    failList.add("商品ID " + item.getProductId() + ": " + item.getStatus().getDesc());
                 }
             }
             
@@ -216,6 +226,26 @@ public class InventoryController {
         }
     }
     
+    @Operation(summary = "批量调整库存", description = "以JSON提交多行库存调整，分块批量执行并返回每一行的结果，单行失败不影响其他行")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "处理完成", 
+                    content = @Content(schema = @Schema(implementation = Result.class), 
+                    examples = @ExampleObject(value = "{\"code\": 200, \"message\": \"操作成功\", \"data\": {\"items\": [{\"productId\": 1, \"stockChange\": 10, \"status\": \"APPLIED\"}], \"successCount\": 1, \"failCount\": 0}}"))),
+            @ApiResponse(responseCode = "400", description = "参数错误", 
+                    content = @Content(schema = @Schema(implementation = Result.class)))
+    })
+    @PostMapping("/bulk-adjust")
+    public Result<InventoryAdjustResult> bulkAdjustInventory(@RequestBody List<InventoryUpdateDTO> adjustments) {
+        try {
+            return Result.success(inventoryService.bulkAdjustInventory(adjustments));
+        } catch (BusinessException e) {
+            return Result.fail(400, e.getMessage());
+        } catch (Exception e) {
+            log.error("批量调整库存失败", e);
+            return Result.fail(500, "批量调整库存失败: " + e.getMessage());
+        }
+    }
+    
     @Operation(summary = "创建商品库存记录", description = "为新商品创建库存记录")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "创建成功", 
@@ -315,4 +345,81 @@ public class InventoryController {
             return Result.fail(500, "删除库存记录失败: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+    
+    @Operation(summary = "标记秒杀商品", description = "将商品标记为秒杀热点商品，库存镜像到Redis中预扣，MySQL库存异步对账")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "标记成功", 
+                    content = @Content(schema = @Schema(implementation = Result.class))),
+            @ApiResponse(responseCode = "404", description = "库存记录不存在", 
+                    content = @Content(schema = @Schema(implementation = Result.class)))
+    })
+    @PostMapping("/flash-sale/{productId}")
+    public Result<Void> markFlashSaleProduct(
+            @Parameter(description = "商品ID", required = true, example = "1")
+            @PathVariable("productId") @NotNull(message = "商品ID不能为空") @Positive(message = "商品ID必须为正数") Long productId) {
+
+        try {
+            flashSaleStockService.markHot(productId);
+            return Result.success();
+        } catch (Exception e) {
+            log.error("标记秒杀商品失败，商品ID: {}", productId, e);
+            return Result.fail(500, "标记秒杀商品失败: " + e.getMessage());
+        }
+    }
+    
+    @Operation(summary = "取消秒杀商品", description = "取消商品的秒杀标记，Redis中的预扣量同步回MySQL后删除镜像")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "取消成功", 
+                    content = @Content(schema = @Schema(implementation = Result.class)))
+    })
+    @DeleteMapping("/flash-sale/{productId}")
+    public Result<Void> unmarkFlashSaleProduct(
+            @Parameter(description = "商品ID", required = true, example = "1")
+            @PathVariable("productId") @NotNull(message = "商品ID不能为空") @Positive(message = "商品ID必须为正数") Long productId) {
+
+        try {
+            flashSaleStockService.unmarkHot(productId);
+            return Result.success();
+        } catch (Exception e) {
+            log.error("取消秒杀商品失败，商品ID: {}", productId, e);
+            return Result.fail(500, "取消秒杀商品失败: " + e.getMessage());
+        }
+    }
+    
+    @Operation(summary = "查询库存流水", description = "按序号倒序查询商品的库存变动流水，传入上一页最后一条的序号继续向前翻页")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "查询成功", 
+                    content = @Content(schema = @Schema(implementation = Result.class)))
+    })
+    @GetMapping("/product/{productId}/movements")
+    public Result<List<InventoryMovement>> getMovements(
+            @Parameter(description = "商品ID", required = true, example = "1")
+            @PathVariable("productId") @NotNull(message = "商品ID不能为空") @Positive(message = "商品ID必须为正数") Long productId,
+            @Parameter(description = "只查询序号小于该值的流水", example = "1000")
+            @RequestParam(value = "beforeId", required = false) Long beforeId,
+            @Parameter(description = "查询数量（1-200）", example = "50")
+            @RequestParam(value = "limit", defaultValue = "50") @Positive(message = "查询数量必须为正数") Integer limit) {
+        
+        try {
+            return Result.success(inventoryLedgerService.getMovements(productId, beforeId, Math.min(limit, 200)));
+        } catch (Exception e) {
+            log.error("查询库存流水失败，商品ID: {}", productId, e);
+            return Result.fail(500, "查询库存流水失败，请稍后重试");
+        }
+    }
+    
+    @Operation(summary = "核对库存流水", description = "按最近快照与其后的流水重算库存，返回与库存表不一致的商品")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "核对完成", 
+                    content = @Content(schema = @Schema(implementation = Result.class)))
+    })
+    @GetMapping("/ledger/verify")
+    public Result<List<InventoryLedgerMismatch>> verifyLedger() {
+        try {
+            return Result.success(inventoryLedgerService.verify());
+        } catch (Exception e) {
+            log.error("核对库存流水失败", e);
+            return Result.fail(500, "核对库存流水失败，请稍后重试");
+        }
+    }
+}
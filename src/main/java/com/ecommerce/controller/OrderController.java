@@ -1,8 +1,10 @@
 package com.ecommerce.controller;
 
+import com.ecommerce.common.result.CursorPageResult;
 import com.ecommerce.common.result.PageResult;
 import com.ecommerce.common.result.Result;
 import com.ecommerce.model.dto.OrderCreateDTO;
+import com.ecommerce.model.dto.OrderExportDTO;
 import com.ecommerce.model.dto.OrderQueryDTO;
 import com.ecommerce.model.entity.Order;
 import com.ecommerce.model.view.OrderDetailsView;
@@ -10,13 +12,19 @@ import com.ecommerce.model.vo.OrderDetailVO;
 import com.ecommerce.model.vo.SimpleOrderVO;
 
 import java.util.List;
+import com.ecommerce.service.IdempotencyService;
+import com.ecommerce.service.OrderExportService;
 import com.ecommerce.service.OrderService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.Map;
 import jakarta.validation.constraints.NotNull;
@@ -29,11 +37,19 @@ import jakarta.validation.constraints.Positive;
 public class OrderController {
 
     private final OrderService orderService;
+    private final OrderExportService orderExportService;
+    private final IdempotencyService idempotencyService;
+
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
 
     @PostMapping
-    @Operation(summary = "创建订单", description = "根据商品信息创建新订单")
-    public Result<Order> createOrder(@Valid @RequestBody OrderCreateDTO dto) {
-        Order order = orderService.createOrder(dto);
+    @Operation(summary = "创建订单", description = "根据商品信息创建新订单，携带Idempotency-Key请求头时重复提交返回首次创建的订单")
+    public Result<Order> createOrder(
+            @Parameter(description = "幂等键") @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody OrderCreateDTO dto) {
+        Order order = idempotencyKey == null
+                ? orderService.createOrder(dto)
+                : idempotencyService.execute("order:" + dto.getCustomerId(), idempotencyKey, dto, () -> orderService.createOrder(dto));
         return Result.success(order, "订单创建成功");
     }
 
@@ -53,6 +69,22 @@ public class OrderController {
         return Result.success(result);
     }
 
+    @GetMapping("/details")
+    @Operation(summary = "批量查询订单详情", description = "根据订单ID列表批量查询订单详细信息，按传入顺序返回")
+    public Result<List<OrderDetailVO>> getOrderDetails(
+            @Parameter(description = "订单ID列表") @RequestParam("ids") List<Long> orderIds) {
+        List<OrderDetailVO> orderDetails = orderService.getOrderDetails(orderIds);
+        return Result.success(orderDetails);
+    }
+
+    @GetMapping("/scroll")
+    @Operation(summary = "游标分页查询订单列表", description = "按创建时间倒序翻页，使用上一页返回的nextCursor获取下一页")
+    public Result<CursorPageResult<OrderDetailsView>> scrollOrders(
+            @Parameter(description = "查询条件") OrderQueryDTO queryDTO) {
+        CursorPageResult<OrderDetailsView> result = orderService.scrollOrders(queryDTO);
+        return Result.success(result);
+    }
+
     @PutMapping("/{orderId}/cancel")
     @Operation(summary = "取消订单", description = "取消指定订单")
     public Result<Void> cancelOrder(
@@ -125,6 +157,20 @@ public class OrderController {
         return Result.success(Map.of("message", "功能开发中"));
     }
 
+    @GetMapping("/export")
+    @Operation(summary = "导出订单", description = "按状态和创建时间范围流式导出订单，支持ndjson和csv格式")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @Parameter(description = "导出条件") OrderExportDTO queryDTO,
+            @Parameter(description = "导出格式：ndjson或csv") @RequestParam(value = "format", defaultValue = "ndjson") String format) {
+        OrderExportService.ExportFormat exportFormat = OrderExportService.ExportFormat.of(format);
+        orderExportService.validate(queryDTO);
+        StreamingResponseBody body = outputStream -> orderExportService.exportOrders(queryDTO, exportFormat, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=orders." + exportFormat.getExtension())
+                .body(body);
+    }
+
     @GetMapping("/simple")
     @Operation(summary = "获取简单订单列表", description = "获取用于下拉选择的简单订单信息")
     public Result<List<SimpleOrderVO>> getSimpleOrders() {
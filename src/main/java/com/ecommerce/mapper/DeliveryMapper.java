@@ -54,6 +54,11 @@ public interface DeliveryMapper {
     @Update("UPDATE delivery SET status = #{status} WHERE order_id = #{orderId}")
     int updateStatusByOrderId(@Param("orderId") Long orderId, @Param("status") String status);
 
+    /**
+     * 批量更新多个订单的配送状态
+     */
+    int batchUpdateStatusByOrderIds(@Param("orderIds") List<Long> orderIds, @Param("status") String status);
+
     /**
      * 根据订单ID删除配送信息
      */
@@ -1,6 +1,9 @@
 package com.ecommerce.mapper;
 
+import com.ecommerce.model.dto.InventoryQueryDTO;
+import com.ecommerce.model.dto.InventoryUpdateDTO;
 import com.ecommerce.model.entity.Inventory;
+import com.ecommerce.model.entity.StockReservation;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import java.util.List;
@@ -38,6 +41,13 @@ public interface InventoryMapper {
      */
     int updateStock(@Param("productId") Long productId, @Param("stockChange") Integer stockChange);
     
+    /**
+     * 批量更新库存数量（一条语句更新多行）
+     * @param stockChanges 商品ID -> 库存变化量（正数为增加，负数为减少）
+     * @return 影响行数
+     */
+    int batchUpdateStock(@Param("stockChanges") Map<Long, Integer> stockChanges);
+    
     /**
      * 更新低库存阈值
      * @param productId 商品ID
@@ -114,4 +124,70 @@ public interface InventoryMapper {
      * @return 影响行数
      */
     int releaseStock(@Param("productId") Long productId, @Param("quantity") Integer quantity);
+    
+    /**
+     * 预占库存（锁定并扣减），可用库存不足时不更新
+     * @param productId 商品ID
+     * @param quantity 预占数量
+     * @return 影响行数（0表示库存记录不存在或可用库存不足）
+     */
+    int reserveStock(@Param("productId") Long productId, @Param("quantity") Integer quantity);
+    
+    /**
+     * 扣减库存，库存不足时不更新
+     * @param productId 商品ID
+     * @param quantity 扣减数量
+     * @return 影响行数（0表示库存记录不存在或库存不足）
+     */
+    int deductStock(@Param("productId") Long productId, @Param("quantity") Integer quantity);
+    
+    /**
+     * 批量预占库存（一条语句完成锁定与扣减，仅更新可用库存充足的行）
+     * @param quantities 商品ID -> 预占数量
+     * @return 成功预占的行数
+     */
+    int batchReserveStock(@Param("quantities") Map<Long, Integer> quantities);
+    
+    /**
+     * 批量查询并锁定库存记录
+     * @param productIds 商品ID列表
+     * @return 库存信息列表
+     */
+    List<Inventory> selectByProductIdsForUpdate(@Param("list") List<Long> productIds);
+    
+    /**
+     * 批量调整库存（一条语句更新多行，可同时更新低库存阈值），调整后库存为负的行不更新
+     * @param items 调整项，同一商品只能出现一次
+     * @return 影响行数
+     */
+    int bulkAdjustStock(@Param("items") List<InventoryUpdateDTO> items);
+    
+    /**
+     * 按条件查询库存（关联商品名称与价格），所有条件可组合，分页由PageHelper在数据库中完成
+     * @param queryDTO 查询条件
+     * @return 库存信息列表
+     */
+    List<Inventory> selectByCondition(InventoryQueryDTO queryDTO);
+    
+    /**
+     * 按商品ID游标分批查询库存余量（用于构建低库存索引）
+     * @param lastProductId 上一批最后一个商品ID，首批为null
+     * @param limit 每批数量
+     * @return 库存信息列表（仅含商品ID、库存与低库存阈值）
+     */
+    List<Inventory> selectMarginsAfter(@Param("lastProductId") Long lastProductId, @Param("limit") int limit);
+    
+    /**
+     * 批量释放预占：加回预占数量，并解除其中计入锁定库存的部分
+     * @param items 按商品汇总的预占（quantity为加回数量，lockedQuantity为解除锁定数量），同一商品只能出现一次
+     * @return 影响行数
+     */
+    int releaseReservations(@Param("items") List<StockReservation> items);
+    
+    /**
+     * 批量确认预占：库存已在预占时扣除，只解除计入锁定库存的部分
+     * @param items 按商品汇总的预占（lockedQuantity为解除锁定数量），同一商品只能出现一次
+     * @return 影响行数
+     */
+    int commitReservations(@Param("items") List<StockReservation> items);
 }
\ No newline at end of file
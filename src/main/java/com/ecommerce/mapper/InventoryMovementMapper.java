@@ -0,0 +1,66 @@
+package com.ecommerce.mapper;
+
+import com.ecommerce.model.entity.InventoryMovement;
+import com.ecommerce.model.vo.InventoryLedgerMismatch;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+@Mapper
+public interface InventoryMovementMapper {
+
+    /**
+     * 批量写入库存流水
+     * @param movements 流水列表
+     * @return 影响行数
+     */
+    int batchInsert(@Param("list") List<InventoryMovement> movements);
+
+    /**
+     * 按序号倒序查询商品的库存流水
+     * @param productId 商品ID
+     * @param beforeId 只查询序号小于该值的流水，为null时从最新开始
+     * @param limit 查询数量
+     * @return 流水列表
+     */
+    List<InventoryMovement> selectByProductId(@Param("productId") Long productId, @Param("beforeId") Long beforeId,
+                                              @Param("limit") int limit);
+
+    /**
+     * 是否已生成过快照
+     * @return 存在快照时为true
+     */
+    boolean existsSnapshot();
+
+    /**
+     * 认领已提交且未计入快照的流水，标记为合并中
+     * @return 认领的流水数
+     */
+    int claimUnmerged();
+
+    /**
+     * 为尚无快照的商品以库存表当前值建立期初快照
+     * @return 影响行数
+     */
+    int insertOpeningSnapshots();
+
+    /**
+     * 将合并中的流水按商品汇总累加到快照
+     * @return 影响行数
+     */
+    int mergeSnapshots();
+
+    /**
+     * 将合并中的流水标记为已计入快照
+     * @return 影响行数
+     */
+    int finishMerge();
+
+    /**
+     * 按快照加未计入快照的流水重算库存，返回与库存表不一致的商品
+     * @param limit 最多返回数量
+     * @return 差异列表
+     */
+    List<InventoryLedgerMismatch> selectMismatches(@Param("limit") int limit);
+}
@@ -24,6 +24,11 @@ public interface OrderItemMapper {
      */
     List<OrderItem> selectByOrderId(Long orderId);
     
+    /**
+     * 根据多个订单ID查询订单项列表
+     */
+    List<OrderItem> selectByOrderIds(@Param("orderIds") List<Long> orderIds);
+    
     /**
      * 根据商品ID查询订单项列表
      */
@@ -48,4 +53,9 @@ public interface OrderItemMapper {
      * 批量插入订单项
      */
     int batchInsert(List<OrderItem> orderItems);
+    
+    /**
+     * 按商品汇总多个订单的购买数量（只填充productId与quantity）
+     */
+    List<OrderItem> sumQuantityByOrderIds(@Param("orderIds") List<Long> orderIds);
 }
\ No newline at end of file
@@ -1,10 +1,13 @@
 package com.ecommerce.mapper;
 
+import com.ecommerce.model.dto.OrderExportDTO;
 import com.ecommerce.model.dto.OrderQueryDTO;
 import com.ecommerce.model.entity.Order;
 import com.ecommerce.model.view.OrderDetailsView;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Mapper
@@ -13,8 +16,33 @@ public interface OrderMapper {
 
     int updateStatus(@Param("id") Long id, @Param("status") String status);
 
+    /**
+     * 取消订单（已取消的订单不更新）
+     *
+     * @param id 订单ID
+     * @return 影响行数，0表示订单不存在或已取消
+     */
+    int cancelIfNotCancelled(@Param("id") Long id);
+
+    /**
+     * 批量更新订单状态
+     *
+     * @param ids 订单ID列表
+     * @param status 订单状态
+     * @return 影响行数
+     */
+    int batchUpdateStatus(@Param("ids") List<Long> ids, @Param("status") String status);
+
     Order selectById(Long id);
 
+    /**
+     * 根据ID列表批量查询订单
+     *
+     * @param ids 订单ID列表
+     * @return 订单列表
+     */
+    List<Order> selectByIds(@Param("ids") List<Long> ids);
+
     Order selectByOrderNo(String orderNo);
 
     List<Order> selectByCustomer(Long customerId);
@@ -27,6 +55,14 @@ public interface OrderMapper {
      */
     List<OrderDetailsView> searchOrders(OrderQueryDTO queryDTO);
 
+    /**
+     * 游标分页查询订单列表，按(create_time, id)倒序，返回最多pageSize + 1条
+     *
+     * @param queryDTO 查询条件，cursorCreateTime/cursorId为上一页最后一条记录的位置
+     * @return 订单列表
+     */
+    List<OrderDetailsView> searchOrdersByCursor(OrderQueryDTO queryDTO);
+
     /**
      * 查询订单总数
      * 
@@ -49,4 +85,30 @@ public interface OrderMapper {
      * @return 所有订单列表
      */
     List<Order> selectAll();
+
+    /**
+     * 流式查询订单（关联客户信息），按订单ID升序逐行读取，调用方需在事务内遍历并关闭游标
+     *
+     * @param queryDTO 导出条件
+     * @return 订单游标
+     */
+    Cursor<Order> streamOrders(OrderExportDTO queryDTO);
+
+    /**
+     * 按ID游标分页查询未支付订单（只返回ID与创建时间）
+     *
+     * @param lastId 上一页最后一个订单ID
+     * @param limit 每页数量
+     * @return 未支付订单列表
+     */
+    List<Order> selectUnpaidOrders(@Param("lastId") Long lastId, @Param("limit") int limit);
+
+    /**
+     * 锁定并返回指定订单中仍未支付且已超时的订单ID
+     *
+     * @param ids 订单ID列表
+     * @param deadline 创建时间早于该时间的订单视为超时
+     * @return 可取消的订单ID列表
+     */
+    List<Long> selectExpiredUnpaidIdsForUpdate(@Param("ids") List<Long> ids, @Param("deadline") LocalDateTime deadline);
 }
\ No newline at end of file
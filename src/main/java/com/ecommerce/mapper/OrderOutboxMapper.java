@@ -0,0 +1,50 @@
+package com.ecommerce.mapper;
+
+import com.ecommerce.model.entity.OrderOutbox;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Mapper
+public interface OrderOutboxMapper {
+
+    /**
+     * 批量写入待处理事件
+     */
+    int batchInsert(List<OrderOutbox> events);
+
+    /**
+     * 锁定一批可处理的事件：每个订单只取最早的待处理事件，已被其他节点锁定的事件跳过
+     *
+     * @param now 当前时间，未到重试时间的事件不处理
+     * @param limit 每批数量
+     * @return 事件列表，按ID升序
+     */
+    List<OrderOutbox> selectDispatchableForUpdate(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    /**
+     * 锁定指定订单的全部待处理事件，按ID升序
+     */
+    List<OrderOutbox> selectPendingByOrderIdForUpdate(@Param("orderId") Long orderId);
+
+    /**
+     * 批量标记事件处理完成
+     */
+    int batchMarkDone(@Param("ids") List<Long> ids);
+
+    /**
+     * 记录处理失败，更新重试次数、下次处理时间和状态
+     */
+    int markFailed(@Param("id") Long id, @Param("retryCount") int retryCount,
+                   @Param("nextRetryTime") LocalDateTime nextRetryTime,
+                   @Param("status") String status, @Param("lastError") String lastError);
+
+    /**
+     * 删除指定时间之前已完成的事件
+     *
+     * @return 删除行数
+     */
+    int deleteDoneBefore(@Param("before") LocalDateTime before, @Param("limit") int limit);
+}
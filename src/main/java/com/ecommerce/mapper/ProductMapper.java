@@ -18,7 +18,36 @@ public interface ProductMapper {
 
     Product selectById(Long id);
 
-    List<Product> selectByCondition(ProductQueryDTO queryDTO);
+    /**
+     * 根据ID列表批量查询商品
+     */
+    List<Product> selectByIds(@Param("list") List<Long> ids);
+
+    /**
+     * 条件查询商品
+     * @param productIds 搜索索引给出的候选ID，非null时代替名称/关键词的模糊匹配，不能为空列表
+     */
+    List<Product> selectByCondition(@Param("query") ProductQueryDTO queryDTO, @Param("productIds") List<Long> productIds);
+
+    /**
+     * 条件查询商品ID，顺序与selectByCondition一致
+     */
+    List<Long> selectIdsByCondition(@Param("query") ProductQueryDTO queryDTO, @Param("productIds") List<Long> productIds);
+
+    /**
+     * 条件统计商品数量
+     */
+    long countByCondition(@Param("query") ProductQueryDTO queryDTO, @Param("productIds") List<Long> productIds);
+
+    /**
+     * 按主键分批读取商品的索引字段（ID、店铺、名称、描述、价格、状态）
+     */
+    List<Product> selectForIndex(@Param("lastId") long lastId, @Param("limit") int limit);
+
+    /**
+     * 按主键分批读取商品ID
+     */
+    List<Long> selectIdsAfter(@Param("lastId") long lastId, @Param("limit") int limit);
 
     List<Product> selectLowStockProducts(Integer threshold);
 }
\ No newline at end of file
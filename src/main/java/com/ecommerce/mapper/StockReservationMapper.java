@@ -0,0 +1,51 @@
+package com.ecommerce.mapper;
+
+import com.ecommerce.model.entity.StockReservation;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Mapper
+public interface StockReservationMapper {
+
+    /**
+     * 批量写入预占记录
+     */
+    int batchInsert(List<StockReservation> reservations);
+
+    /**
+     * 锁定订单中指定状态的预占记录
+     * @param orderIds 订单ID列表
+     * @param statuses 预占状态列表
+     * @return 预占记录，按商品ID升序
+     */
+    List<StockReservation> selectByOrderIdsForUpdate(@Param("orderIds") List<Long> orderIds,
+                                                     @Param("statuses") List<String> statuses);
+
+    /**
+     * 按ID批量更新预占状态
+     * @param ids 预占记录ID列表
+     * @param status 新状态
+     * @return 影响行数
+     */
+    int batchUpdateStatus(@Param("ids") List<Long> ids, @Param("status") String status);
+
+    /**
+     * 按订单ID游标查询存在已到期预占的订单
+     * @param now 当前时间
+     * @param lastOrderId 上一批最后一个订单ID，首批为null
+     * @param limit 每批数量
+     * @return 订单ID列表，升序
+     */
+    List<Long> selectExpiredHeldOrderIds(@Param("now") LocalDateTime now, @Param("lastOrderId") Long lastOrderId,
+                                         @Param("limit") int limit);
+
+    /**
+     * 查询有预占记录的订单（用于区分预占表启用前创建的订单）
+     * @param orderIds 订单ID列表
+     * @return 订单ID列表
+     */
+    List<Long> selectOrderIdsWithReservations(@Param("orderIds") List<Long> orderIds);
+}
@@ -0,0 +1,30 @@
+package com.ecommerce.model.dto;
+
+import com.ecommerce.model.entity.Order;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * 订单导出条件DTO
+ */
+@Data
+public class OrderExportDTO {
+    /**
+     * 订单状态
+     */
+    private Order.OrderStatus status;
+
+    /**
+     * 创建时间开始（包含）
+     */
+    @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime startTime;
+
+    /**
+     * 创建时间结束（不包含）
+     */
+    @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime endTime;
+}
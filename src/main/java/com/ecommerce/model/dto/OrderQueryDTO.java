@@ -17,4 +17,15 @@ public class OrderQueryDTO {
     private int pageNum = 1;
     private int pageSize = 20;
     private int offset;
+    /**
+     * 是否查询总数，关闭后分页查询不再执行COUNT
+     */
+    private boolean withTotal = true;
+    /**
+     * 游标分页的继续令牌，为空表示第一页
+     */
+    private String cursor;
+    // 游标解码后的位置，由服务层填充
+    private LocalDateTime cursorCreateTime;
+    private Long cursorId;
 }
\ No newline at end of file
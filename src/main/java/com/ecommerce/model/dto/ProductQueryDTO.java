@@ -8,6 +8,9 @@ import java.math.BigDecimal;
 public class ProductQueryDTO {
     @Size(max = 255, message = "商品名称长度不能超过255个字符")
     private String name; // 商品名称（模糊查询）
+
+    @Size(max = 255, message = "关键词长度不能超过255个字符")
+    private String keyword; // 名称或描述关键词
     
     @Positive(message = "店铺ID必须为正数")
     private Long storeId; // 店铺ID
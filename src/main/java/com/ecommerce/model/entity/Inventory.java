@@ -1,6 +1,7 @@
 package com.ecommerce.model.entity;
 
 import lombok.Data;
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Data
@@ -11,6 +12,10 @@ public class Inventory {
     private Integer lockedStock; // 锁定库存
     private Integer lowStockThreshold; // 低库存阈值
     private LocalDateTime updateTime; // 更新时间
+    
+    // 关联查询字段（非数据库字段）
+    private String productName; // 商品名称
+    private BigDecimal productPrice; // 商品价格
 
     public boolean isLowStock() {
         return stock <= lowStockThreshold;
@@ -0,0 +1,46 @@
+package com.ecommerce.model.entity;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Data
+public class InventoryMovement {
+    private Long id; // 流水序号（自增，单调递增）
+    private Long productId; // 商品ID
+    private MovementType movementType; // 变动类型
+    private Integer stockChange; // 库存变化量
+    private Integer lockedChange; // 锁定库存变化量
+    private LocalDateTime createTime; // 变动提交时间
+
+    // 变动类型枚举
+    public enum MovementType {
+        INIT("创建库存记录"),
+        ADJUST("调整库存"),
+        LOCK("锁定库存"),
+        RELEASE("释放锁定库存"),
+        DEDUCT("扣减库存"),
+        RESERVE("预占库存"),
+        RETURN("归还预占库存"),
+        COMMIT("确认预占库存");
+
+        private final String desc;
+
+        MovementType(String desc) {
+            this.desc = desc;
+        }
+
+        public String getDesc() {
+            return desc;
+        }
+    }
+
+    public static InventoryMovement create(Long productId, MovementType movementType, int stockChange, int lockedChange) {
+        InventoryMovement movement = new InventoryMovement();
+        movement.setProductId(productId);
+        movement.setMovementType(movementType);
+        movement.setStockChange(stockChange);
+        movement.setLockedChange(lockedChange);
+        movement.setCreateTime(LocalDateTime.now());
+        return movement;
+    }
+}
@@ -0,0 +1,63 @@
+package com.ecommerce.model.entity;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Data
+public class OrderOutbox {
+    private Long id;
+    private Long orderId; // 订单ID
+    private EventType eventType; // 事件类型
+    private String payload; // 事件内容（JSON）
+    private OutboxStatus status; // 处理状态
+    private Integer retryCount; // 已重试次数
+    private LocalDateTime nextRetryTime; // 下次可处理时间
+    private String lastError; // 最近一次失败原因
+    private LocalDateTime createTime; // 创建时间
+    private LocalDateTime updateTime; // 更新时间
+
+    // 事件类型枚举
+    public enum EventType {
+        DELIVERY_CREATE("创建配送记录"),
+        ORDER_CREATED_NOTIFY("订单创建通知");
+
+        private final String desc;
+
+        EventType(String desc) {
+            this.desc = desc;
+        }
+
+        public String getDesc() {
+            return desc;
+        }
+    }
+
+    // 处理状态枚举
+    public enum OutboxStatus {
+        PENDING("待处理"),
+        DONE("已完成"),
+        DEAD("重试次数耗尽");
+
+        private final String desc;
+
+        OutboxStatus(String desc) {
+            this.desc = desc;
+        }
+
+        public String getDesc() {
+            return desc;
+        }
+    }
+
+    public static OrderOutbox create(Long orderId, EventType eventType, String payload) {
+        OrderOutbox outbox = new OrderOutbox();
+        outbox.setOrderId(orderId);
+        outbox.setEventType(eventType);
+        outbox.setPayload(payload);
+        outbox.setStatus(OutboxStatus.PENDING);
+        outbox.setRetryCount(0);
+        outbox.setNextRetryTime(LocalDateTime.now());
+        outbox.setCreateTime(LocalDateTime.now());
+        return outbox;
+    }
+}
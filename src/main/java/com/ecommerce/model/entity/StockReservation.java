@@ -0,0 +1,46 @@
+package com.ecommerce.model.entity;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Data
+public class StockReservation {
+    private Long id;
+    private Long orderId; // 订单ID
+    private Long productId; // 商品ID
+    private Integer quantity; // 预占数量（已从库存中扣除）
+    private Integer lockedQuantity; // 计入锁定库存的数量（秒杀商品在Redis中预扣，不计入锁定库存）
+    private ReservationStatus status; // 预占状态
+    private LocalDateTime expireTime; // 预占到期时间
+    private LocalDateTime createTime; // 创建时间
+    private LocalDateTime updateTime; // 更新时间
+
+    // 预占状态枚举
+    public enum ReservationStatus {
+        HELD("预占中"),
+        COMMITTED("已确认"),
+        RELEASED("已释放");
+
+        private final String desc;
+
+        ReservationStatus(String desc) {
+            this.desc = desc;
+        }
+
+        public String getDesc() {
+            return desc;
+        }
+    }
+
+    public static StockReservation hold(Long orderId, Long productId, int quantity, int lockedQuantity, LocalDateTime expireTime) {
+        StockReservation reservation = new StockReservation();
+        reservation.setOrderId(orderId);
+        reservation.setProductId(productId);
+        reservation.setQuantity(quantity);
+        reservation.setLockedQuantity(lockedQuantity);
+        reservation.setStatus(ReservationStatus.HELD);
+        reservation.setExpireTime(expireTime);
+        reservation.setCreateTime(LocalDateTime.now());
+        return reservation;
+    }
+}
@@ -21,6 +21,7 @@ public class OrderDetailsView {
     private String deliveryStatus; // 配送状态描述
     private String products; // 商品信息字符串
     private Integer itemCount; // 商品项数量
+    private LocalDateTime createTime;
 
     // 解析商品列表
     public String[] getProductList() {
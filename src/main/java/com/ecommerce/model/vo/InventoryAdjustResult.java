@@ -0,0 +1,69 @@
+package com.ecommerce.model.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量库存调整结果VO
+ */
+@Data
+public class InventoryAdjustResult {
+    /**
+     * 各行的调整结果，与请求顺序一致
+     */
+    private List<ItemResult> items = new ArrayList<>();
+
+    private int successCount;
+
+    private int failCount;
+
+    /**
+     * 调整状态
+     */
+    public enum AdjustStatus {
+        APPLIED("调整成功"),
+        INSUFFICIENT_STOCK("库存不足"),
+        NOT_FOUND("库存记录不存在"),
+        INVALID("参数无效"),
+        FAILED("系统异常");
+
+        private final String desc;
+
+        AdjustStatus(String desc) {
+            this.desc = desc;
+        }
+
+        public String getDesc() {
+            return desc;
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ItemResult {
+        private Long productId;
+        private Integer stockChange;
+        private AdjustStatus status;
+    }
+
+    public void addItem(Long productId, Integer stockChange, AdjustStatus status) {
+        items.add(new ItemResult(productId, stockChange, status));
+        if (status == AdjustStatus.APPLIED) {
+            successCount++;
+        } else {
+            failCount++;
+        }
+    }
+
+    /**
+     * 获取调整失败的行
+     */
+    public List<ItemResult> getFailedItems() {
+        return items.stream().filter(item -> item.getStatus() != AdjustStatus.APPLIED).toList();
+    }
+}
@@ -0,0 +1,15 @@
+package com.ecommerce.model.vo;
+
+import lombok.Data;
+
+/**
+ * 库存流水核对差异：按快照加后续流水重算的库存与库存表不一致的商品
+ */
+@Data
+public class InventoryLedgerMismatch {
+    private Long productId; // 商品ID
+    private Integer stock; // 库存表中的库存
+    private Integer lockedStock; // 库存表中的锁定库存
+    private Integer ledgerStock; // 按流水重算的库存
+    private Integer ledgerLockedStock; // 按流水重算的锁定库存
+}
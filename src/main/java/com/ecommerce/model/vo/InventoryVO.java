@@ -29,6 +29,8 @@ public class InventoryVO {
         this.lowStockThreshold = inventory.getLowStockThreshold();
         this.isLowStock = inventory.isLowStock();
         this.updateTime = inventory.getUpdateTime();
+        this.productName = inventory.getProductName();
+        this.productPrice = inventory.getProductPrice();
         this.stockStatus = getStockStatusDescription();
     }
     
@@ -0,0 +1,23 @@
+package com.ecommerce.model.vo;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 订单导出行VO
+ */
+@Data
+public class OrderExportVO {
+    private Long id;
+    private String orderNo;
+    private Long customerId;
+    private String customerName;
+    private String customerPhone;
+    private String deliveryAddress;
+    private BigDecimal totalAmount;
+    private String status;
+    private LocalDateTime orderTime;
+    private LocalDateTime createTime;
+}
@@ -0,0 +1,18 @@
+package com.ecommerce.model.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 商品搜索结果ID列表：按搜索顺序排列的前若干个商品ID与命中总数，不同每页数量的分页共用
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSearchIds {
+    private List<Long> ids; // 商品ID，按搜索顺序
+    private long total; // 命中总数
+}
@@ -0,0 +1,65 @@
+package com.ecommerce.model.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 库存预占结果VO
+ */
+@Data
+public class StockReservationResult {
+    /**
+     * 各商品的预占结果
+     */
+    private List<ItemResult> items = new ArrayList<>();
+
+    /**
+     * 预占状态
+     */
+    public enum ReservationStatus {
+        RESERVED("预占成功"),
+        INSUFFICIENT_STOCK("可用库存不足"),
+        NOT_FOUND("库存记录不存在");
+
+        private final String desc;
+
+        ReservationStatus(String desc) {
+            this.desc = desc;
+        }
+
+        public String getDesc() {
+            return desc;
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ItemResult {
+        private Long productId;
+        private Integer quantity;
+        private ReservationStatus status;
+    }
+
+    public void addItem(Long productId, Integer quantity, ReservationStatus status) {
+        items.add(new ItemResult(productId, quantity, status));
+    }
+
+    /**
+     * 是否全部预占成功
+     */
+    public boolean isAllReserved() {
+        return items.stream().allMatch(item -> item.getStatus() == ReservationStatus.RESERVED);
+    }
+
+    /**
+     * 获取预占失败的商品
+     */
+    public List<ItemResult> getFailedItems() {
+        return items.stream().filter(item -> item.getStatus() != ReservationStatus.RESERVED).toList();
+    }
+}
@@ -0,0 +1,389 @@
+package com.ecommerce.service;
+
+import com.ecommerce.common.constant.ErrorCode;
+import com.ecommerce.common.exception.BusinessException;
+import com.ecommerce.common.util.RequestCombiner;
+import com.ecommerce.mapper.InventoryMapper;
+import com.ecommerce.model.entity.Inventory;
+import com.ecommerce.model.entity.InventoryMovement;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * 秒杀库存服务
+ * 热点商品的可用库存镜像到Redis中，由Lua脚本原子预扣，MySQL库存由后台任务按批次异步对账；
+ * 本节点并发的预扣请求合并为一次脚本调用，秒杀时减少Redis往返与脚本执行次数
+ * Redis中预扣的数量只从MySQL库存中扣除，不计入锁定库存（预占记录的lockedQuantity为0），
+ * 释放时只加回库存、确认时不解除锁定，对账异步进行不影响锁定库存
+ */
+@Service
+@Slf4j
+public class FlashSaleStockService {
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private InventoryMapper inventoryMapper;
+
+    @Autowired
+    private LowStockIndexService lowStockIndexService;
+
+    @Autowired
+    private InventoryLedgerService inventoryLedgerService;
+
+    @Value("${ecommerce.flash-sale.enabled:false}")
+    private boolean enabled;
+
+    @Value("${ecommerce.flash-sale.reconcile-batch-size:500}")
+    private int reconcileBatchSize;
+
+    /**
+     * 一次脚本调用最多合并的预扣请求数
+     */
+    @Value("${ecommerce.flash-sale.combine-max-batch:64}")
+    private int combineMaxBatch;
+
+    // 缓存键（使用相同的hash tag，保证集群模式下脚本涉及的键位于同一个slot）
+    private static final String HOT_PRODUCTS_KEY = "inventory:{flash}:hot";
+    private static final String STOCK_KEY_PREFIX = "inventory:{flash}:stock:";
+    private static final String PENDING_KEY = "inventory:{flash}:pending";
+
+    /**
+     * 批量预扣库存：按顺序处理多个预扣请求，每个请求的全部商品可用库存充足时才扣减，并累加待同步到MySQL的扣减量
+     * KEYS为本批涉及的镜像库存键加待同步键，ARGV前#KEYS-1项为对应的商品ID，其后每个请求依次为商品数n和n组(键序号, 数量)
+     * 按请求顺序返回结果：0表示成功，i表示请求中第i个商品库存不足，-i表示第i个商品未镜像到Redis
+     */
+    private static final RedisScript<List> RESERVE_SCRIPT = new DefaultRedisScript<>(
+            "local k = #KEYS - 1\n" +
+            "local result = {}\n" +
+            "local pos = k + 1\n" +
+            "while pos <= #ARGV do\n" +
+            "  local n = tonumber(ARGV[pos])\n" +
+            "  local code = 0\n" +
+            "  for i = 1, n do\n" +
+            "    local stock = tonumber(redis.call('GET', KEYS[tonumber(ARGV[pos + 2 * i - 1])]))\n" +
+            "    if stock == nil then code = -i break end\n" +
+            "    if stock < tonumber(ARGV[pos + 2 * i]) then code = i break end\n" +
+            "  end\n" +
+            "  if code == 0 then\n" +
+            "    for i = 1, n do\n" +
+            "      local index = tonumber(ARGV[pos + 2 * i - 1])\n" +
+            "      redis.call('DECRBY', KEYS[index], ARGV[pos + 2 * i])\n" +
+            "      redis.call('HINCRBY', KEYS[k + 1], ARGV[index], ARGV[pos + 2 * i])\n" +
+            "    end\n" +
+            "  end\n" +
+            "  table.insert(result, code)\n" +
+            "  pos = pos + 2 * n + 1\n" +
+            "end\n" +
+            "return result", List.class);
+
+    /**
+     * 归还预扣的库存（订单回滚时使用）
+     * 待同步扣减量总是冲回；镜像已被移除时不再归还镜像库存
+     */
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "local n = #KEYS - 1\n" +
+            "for i = 1, n do\n" +
+            "  if redis.call('EXISTS', KEYS[i]) == 1 then\n" +
+            "    redis.call('INCRBY', KEYS[i], ARGV[i])\n" +
+            "  end\n" +
+            "  redis.call('HINCRBY', KEYS[n + 1], ARGV[n + i], -tonumber(ARGV[i]))\n" +
+            "end\n" +
+            "return 0", Long.class);
+
+    /**
+     * 调整镜像库存（库存被直接修改时同步），镜像不存在时不处理
+     */
+    private static final RedisScript<Long> ADJUST_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 1 then\n" +
+            "  return redis.call('INCRBY', KEYS[1], ARGV[1])\n" +
+            "end\n" +
+            "return nil", Long.class);
+
+    /**
+     * 取出并清零一批商品的待同步扣减量，返回"商品ID:数量"以逗号分隔
+     */
+    private static final RedisScript<String> DRAIN_SCRIPT = new DefaultRedisScript<>(
+            "local result = {}\n" +
+            "for i = 1, #ARGV do\n" +
+            "  local v = tonumber(redis.call('HGET', KEYS[1], ARGV[i]))\n" +
+            "  if v ~= nil and v ~= 0 then\n" +
+            "    redis.call('HINCRBY', KEYS[1], ARGV[i], -v)\n" +
+            "    table.insert(result, ARGV[i] .. ':' .. v)\n" +
+            "  end\n" +
+            "end\n" +
+            "return table.concat(result, ',')", String.class);
+
+    /**
+     * 本节点缓存的热点商品集合，由对账任务定期从Redis刷新
+     */
+    private volatile Set<Long> hotProductIds = Collections.emptySet();
+
+    /**
+     * 合并本节点并发的预扣请求，请求为按商品ID排序的商品ID -> 数量
+     */
+    private RequestCombiner<Map<Long, Integer>, Long> reserveCombiner;
+
+    @PostConstruct
+    public void init() {
+        reserveCombiner = new RequestCombiner<>(combineMaxBatch, this::reserveBatch);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 判断商品是否为热点商品（基于本地快照）
+     */
+    public boolean isHot(Long productId) {
+        return enabled && hotProductIds.contains(productId);
+    }
+
+    /**
+     * 将商品标记为热点商品，并把当前可用库存加载到Redis
+     * 其他节点在下一次快照刷新前仍会走MySQL预占，应在秒杀开始前完成标记
+     */
+    public void markHot(Long productId) {
+        if (!enabled) {
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "秒杀库存模式未开启");
+        }
+        Inventory inventory = inventoryMapper.selectByProductId(productId);
+        if (inventory == null) {
+            throw new BusinessException(ErrorCode.PRODUCT_NOT_FOUND, "商品库存信息不存在");
+        }
+
+        String stockKey = STOCK_KEY_PREFIX + productId;
+        Boolean loaded = redisTemplate.opsForValue().setIfAbsent(stockKey, inventory.getAvailableStock());
+        redisTemplate.opsForSet().add(HOT_PRODUCTS_KEY, productId);
+        refreshHotProducts();
+
+        log.info("商品ID: {} 已标记为秒杀商品，镜像库存: {}", productId,
+                Boolean.TRUE.equals(loaded) ? inventory.getAvailableStock() : "已存在");
+    }
+
+    /**
+     * 取消热点标记，先把待同步的扣减量写回MySQL，再删除镜像
+     */
+    public void unmarkHot(Long productId) {
+        redisTemplate.opsForSet().remove(HOT_PRODUCTS_KEY, productId);
+        redisTemplate.delete(STOCK_KEY_PREFIX + productId);
+        refreshHotProducts();
+        reconcile(List.of(productId));
+
+        log.info("商品ID: {} 已取消秒杀标记", productId);
+    }
+
+    /**
+     * 从Redis预扣热点商品库存，全部成功或全部失败
+     * 与本节点其他并发请求合并为一次脚本调用，各请求仍分别判断、互不影响
+     * 在事务中调用时，事务回滚后自动归还预扣的库存
+     * @param productQuantities 商品ID -> 预扣数量
+     * @return 未镜像到Redis、需要走MySQL预占的商品
+     */
+    public Map<Long, Integer> reserve(Map<Long, Integer> productQuantities) {
+        Map<Long, Integer> hotQuantities = new TreeMap<>();
+        Map<Long, Integer> remaining = new LinkedHashMap<>();
+        productQuantities.forEach((productId, quantity) -> {
+            if (isHot(productId)) {
+                hotQuantities.put(productId, quantity);
+            } else {
+                remaining.put(productId, quantity);
+            }
+        });
+
+        while (!hotQuantities.isEmpty()) {
+            List<Long> productIds = new ArrayList<>(hotQuantities.keySet());
+            long code = reserveCombiner.submit(new TreeMap<>(hotQuantities));
+            if (code == 0) {
+                registerRollbackRelease(hotQuantities);
+                log.debug("秒杀库存预扣成功，商品: {}", hotQuantities);
+                break;
+            }
+            Long productId = productIds.get((int) Math.abs(code) - 1);
+            if (code > 0) {
+                log.warn("秒杀库存不足，商品ID: {}, 需要数量: {}", productId, hotQuantities.get(productId));
+                throw new BusinessException(ErrorCode.PRODUCT_INSUFFICIENT_STOCK, "商品库存不足");
+            }
+            // 镜像已被移除（其他节点取消了热点标记），改走MySQL
+            remaining.put(productId, hotQuantities.remove(productId));
+        }
+        return remaining;
+    }
+
+    /**
+     * 同步直接修改的库存到镜像，在事务中调用时于提交后执行
+     */
+    public void adjust(Long productId, int stockChange) {
+        if (!isHot(productId)) {
+            return;
+        }
+        Runnable action = () -> redisTemplate.execute(ADJUST_SCRIPT, new StringRedisSerializer(),
+                new GenericToStringSerializer<>(Long.class), List.of(STOCK_KEY_PREFIX + productId), String.valueOf(stockChange));
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * 定期把Redis中的预扣量批量同步到MySQL，并刷新热点商品快照
+     */
+    @Scheduled(fixedDelayString = "${ecommerce.flash-sale.reconcile-interval-ms:1000}")
+    public void reconcileTask() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            refreshHotProducts();
+            Set<Object> fields = redisTemplate.opsForHash().keys(PENDING_KEY);
+            List<Long> productIds = fields.stream().map(field -> Long.valueOf(field.toString())).collect(Collectors.toList());
+            for (int from = 0; from < productIds.size(); from += reconcileBatchSize) {
+                reconcile(productIds.subList(from, Math.min(from + reconcileBatchSize, productIds.size())));
+            }
+        } catch (Exception e) {
+            log.error("秒杀库存对账失败", e);
+        }
+    }
+
+    /**
+     * 取出一批商品的待同步扣减量，以一条多行UPDATE写入MySQL；写入失败时放回Redis等待下次重试
+     * 只扣减库存：这部分数量从未计入锁定库存，释放与确认路径也不会从锁定库存中减去
+     */
+    private void reconcile(List<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        Object[] args = productIds.stream().map(String::valueOf).toArray();
+        String drained = redisTemplate.execute(DRAIN_SCRIPT, new StringRedisSerializer(), new StringRedisSerializer(),
+                List.of(PENDING_KEY), args);
+        if (drained == null || drained.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Integer> deductions = new LinkedHashMap<>();
+        for (String entry : drained.split(",")) {
+            String[] parts = entry.split(":");
+            deductions.put(Long.valueOf(parts[0]), Integer.valueOf(parts[1]));
+        }
+
+        try {
+            // 按商品ID排序，与其他多行更新以相同顺序加行锁
+            Map<Long, Integer> stockChanges = new TreeMap<>();
+            deductions.forEach((productId, quantity) -> stockChanges.put(productId, -quantity));
+            inventoryMapper.batchUpdateStock(stockChanges);
+            inventoryLedgerService.record(deductions, InventoryMovement.MovementType.DEDUCT, -1, 0);
+            lowStockIndexService.touch(deductions.keySet());
+            log.info("秒杀库存对账完成，同步商品数: {}", deductions.size());
+        } catch (Exception e) {
+            log.error("秒杀库存写入MySQL失败，稍后重试，商品: {}", deductions, e);
+            deductions.forEach((productId, quantity) -> redisTemplate.opsForHash().increment(PENDING_KEY, String.valueOf(productId), quantity));
+        }
+    }
+
+    private void refreshHotProducts() {
+        Set<Object> members = redisTemplate.opsForSet().members(HOT_PRODUCTS_KEY);
+        hotProductIds = members == null ? Collections.emptySet()
+                : members.stream().map(member -> Long.valueOf(member.toString())).collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * 事务回滚后归还Redis中预扣的库存
+     */
+    private void registerRollbackRelease(Map<Long, Integer> hotQuantities) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        Map<Long, Integer> reserved = new TreeMap<>(hotQuantities);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    executeScript(RELEASE_SCRIPT, reserved);
+                    log.info("订单事务回滚，已归还秒杀库存: {}", reserved);
+                }
+            }
+        });
+    }
+
+    /**
+     * 一次脚本调用执行一批预扣请求
+     * 脚本返回整数数组，元素不经过结果序列化器，只需声明为List
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private List<Long> reserveBatch(List<Map<Long, Integer>> requests) {
+        Map<Long, Integer> keyIndexes = new LinkedHashMap<>();
+        List<String> keys = new ArrayList<>();
+        List<String> args = new ArrayList<>();
+        for (Map<Long, Integer> request : requests) {
+            for (Long productId : request.keySet()) {
+                if (!keyIndexes.containsKey(productId)) {
+                    keyIndexes.put(productId, keys.size() + 1);
+                    keys.add(STOCK_KEY_PREFIX + productId);
+                    args.add(String.valueOf(productId));
+                }
+            }
+        }
+        keys.add(PENDING_KEY);
+        for (Map<Long, Integer> request : requests) {
+            args.add(String.valueOf(request.size()));
+            request.forEach((productId, quantity) -> {
+                args.add(String.valueOf(keyIndexes.get(productId)));
+                args.add(String.valueOf(quantity));
+            });
+        }
+
+        List<Object> result = redisTemplate.execute(RESERVE_SCRIPT, new StringRedisSerializer(),
+                (RedisSerializer) new GenericToStringSerializer<>(Long.class), keys, args.toArray());
+        if (result == null) {
+            throw new IllegalStateException("秒杀库存预扣脚本无返回结果");
+        }
+        if (requests.size() > 1) {
+            log.debug("秒杀库存预扣合并执行，请求数: {}", requests.size());
+        }
+        return result.stream().map(code -> ((Number) code).longValue()).collect(Collectors.toList());
+    }
+
+    private long executeScript(RedisScript<Long> script, Map<Long, Integer> quantities) {
+        List<String> keys = new ArrayList<>();
+        List<String> args = new ArrayList<>();
+        quantities.forEach((productId, quantity) -> {
+            keys.add(STOCK_KEY_PREFIX + productId);
+            args.add(String.valueOf(quantity));
+        });
+        keys.add(PENDING_KEY);
+        quantities.keySet().forEach(productId -> args.add(String.valueOf(productId)));
+
+        Long result = redisTemplate.execute(script, new StringRedisSerializer(), new GenericToStringSerializer<>(Long.class),
+                keys, args.toArray());
+        return result != null ? result : 0L;
+    }
+}
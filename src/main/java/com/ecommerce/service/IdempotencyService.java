@@ -0,0 +1,220 @@
+package com.ecommerce.service;
+
+import com.ecommerce.common.constant.ErrorCode;
+import com.ecommerce.common.exception.BusinessException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * 幂等请求服务
+ * 同一幂等键的重复请求直接返回首次请求的结果：本节点并发的重复请求等待同一个执行结果，
+ * 跨节点通过Redis记录处理中状态和短期结果缓存；Redis不可用时退化为仅本节点去重
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    private static final String IDEMPOTENCY_PREFIX = "idempotency:";
+    private static final int MAX_KEY_LENGTH = 64;
+    private static final long POLL_INTERVAL_MS = 50;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * 处理中标记的过期时间，防止节点宕机后幂等键永久不可用
+     */
+    @Value("${ecommerce.idempotency.processing-ttl-seconds:60}")
+    private long processingTtlSeconds;
+
+    @Value("${ecommerce.idempotency.result-ttl-seconds:600}")
+    private long resultTtlSeconds;
+
+    /**
+     * 重复请求等待首次请求完成的最长时间
+     */
+    @Value("${ecommerce.idempotency.wait-millis:3000}")
+    private long waitMillis;
+
+    /**
+     * 本节点正在执行的请求
+     */
+    private final ConcurrentHashMap<String, InFlight> inFlightRequests = new ConcurrentHashMap<>();
+
+    /**
+     * Redis中的幂等记录
+     */
+    @Data
+    @NoArgsConstructor
+    public static class IdempotencyRecord {
+        private boolean done;
+        private String fingerprint;
+        private Object result;
+    }
+
+    private record InFlight(String fingerprint, CompletableFuture<Object> future) {
+    }
+
+    /**
+     * 以幂等方式执行操作
+     * @param scope 幂等键作用域，如"order:客户ID"
+     * @param key 客户端提供的幂等键
+     * @param request 请求内容，同一幂等键携带不同请求内容时拒绝
+     * @param action 实际操作
+     * @return 首次执行的结果
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String scope, String key, Object request, Supplier<T> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new BusinessException(ErrorCode.PARAM_ERROR, "幂等键长度必须在1-" + MAX_KEY_LENGTH + "之间");
+        }
+        String redisKey = IDEMPOTENCY_PREFIX + scope + ":" + key;
+        String fingerprint = fingerprint(request);
+
+        // 本节点已有相同请求在执行时等待其结果
+        InFlight inFlight = new InFlight(fingerprint, new CompletableFuture<>());
+        InFlight existing = inFlightRequests.putIfAbsent(redisKey, inFlight);
+        if (existing != null) {
+            checkFingerprint(existing.fingerprint(), fingerprint);
+            log.info("重复请求等待首次执行结果，幂等键: {}", redisKey);
+            return (T) await(existing.future());
+        }
+
+        try {
+            IdempotencyRecord record = acquire(redisKey, fingerprint);
+            if (record != null) {
+                log.info("重复请求返回已有结果，幂等键: {}", redisKey);
+                inFlight.future().complete(record.getResult());
+                return (T) record.getResult();
+            }
+
+            T result;
+            try {
+                result = action.get();
+            } catch (RuntimeException e) {
+                release(redisKey);
+                inFlight.future().completeExceptionally(e);
+                throw e;
+            }
+            saveResult(redisKey, fingerprint, result);
+            inFlight.future().complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            inFlight.future().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightRequests.remove(redisKey, inFlight);
+        }
+    }
+
+    /**
+     * 尝试占用幂等键
+     * @return 已完成的记录；返回null表示由当前请求执行
+     */
+    private IdempotencyRecord acquire(String redisKey, String fingerprint) {
+        IdempotencyRecord processing = new IdempotencyRecord();
+        processing.setFingerprint(fingerprint);
+        long deadline = System.currentTimeMillis() + waitMillis;
+        try {
+            while (true) {
+                Boolean acquired = redisTemplate.opsForValue().setIfAbsent(redisKey, processing, processingTtlSeconds, TimeUnit.SECONDS);
+                if (Boolean.TRUE.equals(acquired)) {
+                    return null;
+                }
+                Object cached = redisTemplate.opsForValue().get(redisKey);
+                if (cached instanceof IdempotencyRecord record) {
+                    checkFingerprint(record.getFingerprint(), fingerprint);
+                    if (record.isDone()) {
+                        return record;
+                    }
+                }
+                // 其他节点正在处理，短暂等待其结果
+                if (System.currentTimeMillis() >= deadline) {
+                    throw new BusinessException(ErrorCode.REQUEST_PROCESSING, "相同请求正在处理中，请稍后重试");
+                }
+                Thread.sleep(POLL_INTERVAL_MS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ErrorCode.REQUEST_PROCESSING, "相同请求正在处理中，请稍后重试");
+        } catch (BusinessException e) {
+            throw e;
+        } catch (Exception e) {
+            log.warn("幂等键占用失败，仅在本节点去重，幂等键: {}, 错误: {}", redisKey, e.getMessage());
+            return null;
+        }
+    }
+
+    private void saveResult(String redisKey, String fingerprint, Object result) {
+        try {
+            IdempotencyRecord record = new IdempotencyRecord();
+            record.setDone(true);
+            record.setFingerprint(fingerprint);
+            record.setResult(result);
+            redisTemplate.opsForValue().set(redisKey, record, resultTtlSeconds, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            log.warn("幂等结果缓存失败，幂等键: {}, 错误: {}", redisKey, e.getMessage());
+        }
+    }
+
+    /**
+     * 执行失败时释放幂等键，允许客户端重试
+     */
+    private void release(String redisKey) {
+        try {
+            redisTemplate.delete(redisKey);
+        } catch (Exception e) {
+            log.warn("幂等键释放失败，幂等键: {}, 错误: {}", redisKey, e.getMessage());
+        }
+    }
+
+    private Object await(CompletableFuture<Object> future) {
+        try {
+            return future.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "请求处理失败");
+        } catch (TimeoutException e) {
+            throw new BusinessException(ErrorCode.REQUEST_PROCESSING, "相同请求正在处理中，请稍后重试");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ErrorCode.REQUEST_PROCESSING, "相同请求正在处理中，请稍后重试");
+        }
+    }
+
+    private void checkFingerprint(String expected, String actual) {
+        if (expected != null && !expected.equals(actual)) {
+            throw new BusinessException(ErrorCode.IDEMPOTENCY_KEY_REUSED, "幂等键已用于内容不同的请求");
+        }
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            byte[] json = objectMapper.writeValueAsString(request).getBytes(StandardCharsets.UTF_8);
+            return DigestUtils.md5DigestAsHex(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("请求内容序列化失败", e);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.ecommerce.service;
+
+import com.ecommerce.mapper.InventoryMapper;
+import com.ecommerce.model.entity.Inventory;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 库存可用量本地缓存
+ * 供只读场景（商品页展示是否有货）使用，预占、扣减等写路径仍直接访问数据库。
+ * 每次库存变更在Redis中递增该商品的版本号并广播"商品ID:版本"，各节点丢弃版本更旧的本地条目；
+ * 加载期间收到更新版本时不写入缓存，避免旧数据覆盖；广播丢失时条目最多在maxStalenessMs后过期。
+ * 已知版本只为缓存中的商品和最近maxStalenessMs内变更过的商品保留，其余的下次加载时从Redis读取
+ */
+@Service
+@Slf4j
+public class InventoryAvailabilityCache implements MessageListener {
+
+    @Autowired
+    private InventoryMapper inventoryMapper;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    /**
+     * 条目最长使用时间，广播丢失时的最大陈旧时间
+     */
+    @Value("${ecommerce.inventory-cache.max-staleness-ms:5000}")
+    private long maxStalenessMs;
+
+    @Value("${ecommerce.inventory-cache.max-entries:100000}")
+    private int maxEntries;
+
+    private static final String VERSION_KEY = "inventory:version";
+    private static final String CHANNEL = "inventory:invalidate";
+
+    /**
+     * 递增各商品版本号并广播"商品ID:版本"，以逗号分隔
+     */
+    private static final RedisScript<String> BUMP_SCRIPT = new DefaultRedisScript<>(
+            "local result = {}\n" +
+            "for i = 2, #ARGV do\n" +
+            "  local version = redis.call('HINCRBY', KEYS[1], ARGV[i], 1)\n" +
+            "  table.insert(result, ARGV[i] .. ':' .. version)\n" +
+            "end\n" +
+            "local message = table.concat(result, ',')\n" +
+            "redis.call('PUBLISH', ARGV[1], message)\n" +
+            "return message", String.class);
+
+    /**
+     * 缓存条目，inventory为null表示库存记录不存在
+     */
+    private record Entry(Inventory inventory, long version, long loadedAt) {
+    }
+
+    /**
+     * 已知版本及最近一次得知的时间
+     */
+    private record KnownVersion(long version, long seenAt) {
+    }
+
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * 本节点已知的各商品最新版本
+     */
+    private final ConcurrentHashMap<Long, KnownVersion> latestVersions = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * 读取商品库存，未命中或过期时从数据库加载
+     * @return 库存记录不存在时返回null；返回的是副本，可以修改
+     */
+    public Inventory get(Long productId) {
+        Entry entry = entries.get(productId);
+        if (entry != null && System.currentTimeMillis() - entry.loadedAt() < maxStalenessMs) {
+            return copy(entry.inventory());
+        }
+
+        long version = currentVersion(productId);
+        Inventory inventory = inventoryMapper.selectByProductId(productId);
+        KnownVersion latest = latestVersions.get(productId);
+        if ((latest == null || latest.version() <= version) && (entries.size() < maxEntries || entries.containsKey(productId))) {
+            entries.put(productId, new Entry(inventory, version, System.currentTimeMillis()));
+        }
+        return copy(inventory);
+    }
+
+    /**
+     * 库存变更提交后调用：递增版本并通知所有节点
+     */
+    public void invalidate(Collection<Long> productIds) {
+        productIds.forEach(entries::remove);
+        try {
+            List<String> args = new ArrayList<>();
+            args.add(CHANNEL);
+            productIds.forEach(productId -> args.add(String.valueOf(productId)));
+            String message = redisTemplate.execute(BUMP_SCRIPT, new StringRedisSerializer(), new StringRedisSerializer(),
+                    List.of(VERSION_KEY), args.toArray());
+            if (message != null) {
+                applyVersions(message);
+            }
+        } catch (Exception e) {
+            // 其他节点的条目在maxStalenessMs内过期
+            log.warn("库存缓存失效通知失败，商品: {}, 错误: {}", productIds, e.getMessage());
+        }
+    }
+
+    /**
+     * 定期清除过期条目，为新条目腾出容量；同时清除不在缓存中、且超过maxStalenessMs未变更的商品版本，
+     * 已知版本的数量不超过缓存条目数加上最近变更的商品数
+     */
+    @Scheduled(fixedDelayString = "${ecommerce.inventory-cache.max-staleness-ms:5000}")
+    public void evictExpired() {
+        long expiredBefore = System.currentTimeMillis() - maxStalenessMs;
+        entries.values().removeIf(entry -> entry.loadedAt() < expiredBefore);
+        latestVersions.entrySet().removeIf(known ->
+                known.getValue().seenAt() < expiredBefore && !entries.containsKey(known.getKey()));
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            applyVersions(new String(message.getBody(), StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            log.warn("库存缓存失效通知解析失败: {}", e.getMessage());
+        }
+    }
+
+    private void applyVersions(String message) {
+        if (message.isEmpty()) {
+            return;
+        }
+        for (String item : message.split(",")) {
+            int sep = item.indexOf(':');
+            Long productId = Long.valueOf(item.substring(0, sep));
+            long version = Long.parseLong(item.substring(sep + 1));
+            mergeVersion(productId, version);
+            entries.computeIfPresent(productId, (id, entry) -> entry.version() < version ? null : entry);
+        }
+    }
+
+    /**
+     * 加载前的版本：优先使用本节点已知版本，未知时读取Redis
+     */
+    private long currentVersion(Long productId) {
+        KnownVersion known = latestVersions.get(productId);
+        if (known != null) {
+            return known.version();
+        }
+        try {
+            Object version = redisTemplate.opsForHash().get(VERSION_KEY, String.valueOf(productId));
+            long value = version != null ? Long.parseLong(version.toString()) : 0L;
+            mergeVersion(productId, value);
+            return value;
+        } catch (Exception e) {
+            return 0L;
+        }
+    }
+
+    private void mergeVersion(Long productId, long version) {
+        KnownVersion seen = new KnownVersion(version, System.currentTimeMillis());
+        latestVersions.merge(productId, seen, (current, update) ->
+                current.version() >= update.version() ? new KnownVersion(current.version(), update.seenAt()) : update);
+    }
+
+    private Inventory copy(Inventory source) {
+        if (source == null) {
+            return null;
+        }
+        Inventory inventory = new Inventory();
+        inventory.setId(source.getId());
+        inventory.setProductId(source.getProductId());
+        inventory.setStock(source.getStock());
+        inventory.setLockedStock(source.getLockedStock());
+        inventory.setLowStockThreshold(source.getLowStockThreshold());
+        inventory.setUpdateTime(source.getUpdateTime());
+        return inventory;
+    }
+}
@@ -0,0 +1,164 @@
+package com.ecommerce.service;
+
+import com.ecommerce.common.util.GroupCommitBatcher;
+import com.ecommerce.mapper.InventoryMovementMapper;
+import com.ecommerce.model.entity.InventoryMovement;
+import com.ecommerce.model.vo.InventoryLedgerMismatch;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 库存流水服务
+ * 每次库存变动在事务提交后追加一条带序号的流水，由组提交批处理器批量写入，不增加请求的数据库往返；
+ * 定期把流水按商品汇总合并到快照，任一商品的库存可由"快照 + 未计入快照的流水"重算并与库存表核对
+ * 自增序号的可见顺序与序号顺序不一致（序号较小的流水可能较晚提交），因此按每条流水的合并状态、而不是序号水位判断是否已计入快照
+ */
+@Service
+@Slf4j
+public class InventoryLedgerService {
+
+    @Autowired
+    private InventoryMovementMapper inventoryMovementMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${ecommerce.inventory-ledger.queue-capacity:100000}")
+    private int queueCapacity;
+
+    @Value("${ecommerce.inventory-ledger.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * 攒批等待时间，流水最多延迟该时间写入
+     */
+    @Value("${ecommerce.inventory-ledger.linger-ms:5}")
+    private long lingerMs;
+
+    @Value("${ecommerce.inventory-ledger.max-retries:5}")
+    private int maxRetries;
+
+    @Value("${ecommerce.inventory-ledger.verify-limit:100}")
+    private int verifyLimit;
+
+    private GroupCommitBatcher<InventoryMovement> batcher;
+
+    /**
+     * 快照事务使用读已提交：认领流水时不加间隙锁，不阻塞并发写入的新流水
+     */
+    private TransactionTemplate snapshotTemplate;
+
+    @PostConstruct
+    public void init() {
+        snapshotTemplate = new TransactionTemplate(transactionManager);
+        snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        batcher = new GroupCommitBatcher<>("inventory-ledger", queueCapacity, batchSize, lingerMs, maxRetries,
+                inventoryMovementMapper::batchInsert);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        batcher.shutdown();
+    }
+
+    /**
+     * 记录一次库存变动，在事务中调用时于提交后记录
+     */
+    public void record(Long productId, InventoryMovement.MovementType movementType, int stockChange, int lockedChange) {
+        afterCommit(() -> batcher.add(InventoryMovement.create(productId, movementType, stockChange, lockedChange)));
+    }
+
+    /**
+     * 批量记录同类库存变动
+     * @param quantities 商品ID -> 数量
+     * @param stockSign 库存变化量相对数量的符号
+     * @param lockedSign 锁定库存变化量相对数量的符号
+     */
+    public void record(Map<Long, Integer> quantities, InventoryMovement.MovementType movementType, int stockSign, int lockedSign) {
+        Map<Long, Integer> snapshot = Map.copyOf(quantities);
+        afterCommit(() -> snapshot.forEach((productId, quantity) ->
+                batcher.add(InventoryMovement.create(productId, movementType, stockSign * quantity, lockedSign * quantity))));
+    }
+
+    /**
+     * 按序号倒序分页查询商品的库存流水
+     */
+    public List<InventoryMovement> getMovements(Long productId, Long beforeId, int limit) {
+        batcher.flush();
+        return inventoryMovementMapper.selectByProductId(productId, beforeId, limit);
+    }
+
+    /**
+     * 生成快照：写出本节点待写流水后，认领已提交且未计入快照的流水，按商品合并到快照并标记为已计入；
+     * 晚提交的流水在下次快照时认领，不会被跳过，也不会重复计入
+     * 首次生成时以库存表当前值作为期初快照，已提交的流水视为已计入，之后新建的库存记录由其INIT流水计入
+     */
+    public void takeSnapshot() {
+        batcher.flush();
+        snapshotTemplate.executeWithoutResult(status -> {
+            boolean opening = !inventoryMovementMapper.existsSnapshot();
+            int claimed = inventoryMovementMapper.claimUnmerged();
+            int merged = 0;
+            int opened = 0;
+            if (opening) {
+                opened = inventoryMovementMapper.insertOpeningSnapshots();
+            } else if (claimed > 0) {
+                merged = inventoryMovementMapper.mergeSnapshots();
+            }
+            inventoryMovementMapper.finishMerge();
+            log.info("库存快照生成完成，认领流水: {}, 合并商品: {}, 期初商品: {}", claimed, merged, opened);
+        });
+    }
+
+    /**
+     * 按快照与未计入快照的流水重算库存，返回与库存表不一致的商品
+     * 其他节点已提交但尚未写入的流水会造成短暂差异，持续出现的差异才需要处理
+     */
+    public List<InventoryLedgerMismatch> verify() {
+        batcher.flush();
+        return inventoryMovementMapper.selectMismatches(verifyLimit);
+    }
+
+    /**
+     * 定期生成快照并核对
+     */
+    @Scheduled(fixedDelayString = "${ecommerce.inventory-ledger.snapshot-interval-ms:3600000}",
+            initialDelayString = "${ecommerce.inventory-ledger.snapshot-interval-ms:3600000}")
+    public void snapshotTask() {
+        try {
+            takeSnapshot();
+            List<InventoryLedgerMismatch> mismatches = verify();
+            if (!mismatches.isEmpty()) {
+                log.warn("库存流水核对发现差异，商品数: {}, 差异: {}", mismatches.size(), mismatches);
+            }
+        } catch (Exception e) {
+            log.error("库存快照生成或核对失败", e);
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -5,14 +5,17 @@ import com.ecommerce.model.dto.InventoryCreateDTO;
 import com.ecommerce.model.dto.InventoryQueryDTO;
 import com.ecommerce.model.dto.InventoryUpdateDTO;
 import com.ecommerce.model.entity.Inventory;
+import com.ecommerce.model.vo.InventoryAdjustResult;
 import com.ecommerce.model.vo.InventoryVO;
+import com.ecommerce.model.vo.StockReservationResult;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
 public interface InventoryService {
     /**
-     * 获取商品库存
+     * 获取商品库存（只读，读取本地缓存，可能短暂陈旧）
      */
     Inventory getProductInventory(Long productId);
 
@@ -37,9 +40,9 @@ public interface InventoryService {
     void createInventory(InventoryCreateDTO createDTO);
     
     /**
-     * 批量更新库存
+     * 批量调整库存，分块以多行UPDATE执行，返回每一行的结果；单行失败不影响其他行
      */
-    void batchUpdateInventory(List<InventoryUpdateDTO> updateDTOList);
+    InventoryAdjustResult bulkAdjustInventory(List<InventoryUpdateDTO> adjustments);
     
     /**
      * 根据条件查询库存列表
@@ -75,6 +78,45 @@ public interface InventoryService {
      */
     void deductStock(Long productId, Integer quantity);
     
+    /**
+     * 为订单逐个商品预占库存（锁定并扣减），每个商品的校验与扣减在一条条件更新语句中完成
+     * 预占成功的商品登记预占记录，由订单取消、支付、超时释放或确认
+     * @param orderId 订单ID
+     * @param productQuantities 商品ID -> 预占数量，商品ID与数量须为正数，否则整体拒绝
+     * @param expireTime 预占到期时间
+     * @return 各商品的预占结果，失败的商品不会被扣减
+     */
+    StockReservationResult reserveStock(Long orderId, Map<Long, Integer> productQuantities, LocalDateTime expireTime);
+    
+    /**
+     * 批量归还预占的库存（预占的逆操作），一条语句完成
+     * 当前为热点商品的数量视为在Redis中预扣，只加回库存、不解除锁定库存
+     * @param productQuantities 商品ID -> 归还数量
+     */
+    void batchReleaseReservedStock(Map<Long, Integer> productQuantities);
+    
+    /**
+     * 为订单批量预占库存并登记预占记录，任一商品库存不足则整体失败
+     * @param orderId 订单ID
+     * @param productQuantities 商品ID -> 预占数量
+     * @param expireTime 预占到期时间
+     */
+    void reserveForOrder(Long orderId, Map<Long, Integer> productQuantities, LocalDateTime expireTime);
+    
+    /**
+     * 释放订单的预占（取消或超时）：预占中的归还库存并解除锁定，已确认的归还库存
+     * @param orderIds 订单ID列表
+     * @return 释放的预占记录数
+     */
+    int releaseOrderReservations(List<Long> orderIds);
+    
+    /**
+     * 确认订单的预占（支付）：解除锁定，库存已在预占时扣除
+     * @param orderIds 订单ID列表
+     * @return 确认的预占记录数
+     */
+    int commitOrderReservations(List<Long> orderIds);
+    
     /**
      * 获取库存统计信息
      */
@@ -0,0 +1,161 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.entity.Inventory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 库存统计服务
+ * 在Redis中维护商品数、总库存、低库存商品数三个累计值：每个商品记录上次计入的库存与是否低库存，
+ * 刷新时按与上次的差值增减累计值，查询统计为O(1)；由低库存索引的定期全量校准修正偏差
+ */
+@Service
+@Slf4j
+public class InventoryStatsService {
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    // 缓存键：每个商品已计入的"库存:是否低库存"、累计值、全量校准完成的标记
+    private static final String ITEMS_KEY = "inventory:stats:items";
+    private static final String TOTALS_KEY = "inventory:stats:totals";
+    private static final String READY_KEY = "inventory:stats:ready";
+
+    private static final String TOTAL_PRODUCTS = "totalProducts";
+    private static final String TOTAL_STOCK = "totalStock";
+    private static final String LOW_STOCK_COUNT = "lowStockCount";
+
+    /**
+     * 计入商品当前库存：参数按"商品ID, 库存, 是否低库存(1/0)"三个一组，库存为空串表示记录已删除；
+     * 与上次计入的值比较得出差值，原子地累加到统计值
+     */
+    private static final RedisScript<Long> APPLY_SCRIPT = new DefaultRedisScript<>(
+            "local products, stock, low = 0, 0, 0\n" +
+            "for i = 1, #ARGV, 3 do\n" +
+            "  local old = redis.call('HGET', KEYS[1], ARGV[i])\n" +
+            "  local oldStock, oldLow = 0, 0\n" +
+            "  if old then\n" +
+            "    local sep = string.find(old, ':')\n" +
+            "    oldStock = tonumber(string.sub(old, 1, sep - 1))\n" +
+            "    oldLow = tonumber(string.sub(old, sep + 1))\n" +
+            "  end\n" +
+            "  if ARGV[i + 1] == '' then\n" +
+            "    if old then\n" +
+            "      redis.call('HDEL', KEYS[1], ARGV[i])\n" +
+            "      products = products - 1\n" +
+            "      stock = stock - oldStock\n" +
+            "      low = low - oldLow\n" +
+            "    end\n" +
+            "  else\n" +
+            "    if not old then products = products + 1 end\n" +
+            "    redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1] .. ':' .. ARGV[i + 2])\n" +
+            "    stock = stock + tonumber(ARGV[i + 1]) - oldStock\n" +
+            "    low = low + tonumber(ARGV[i + 2]) - oldLow\n" +
+            "  end\n" +
+            "end\n" +
+            "redis.call('HINCRBY', KEYS[2], '" + TOTAL_PRODUCTS + "', products)\n" +
+            "redis.call('HINCRBY', KEYS[2], '" + TOTAL_STOCK + "', stock)\n" +
+            "redis.call('HINCRBY', KEYS[2], '" + LOW_STOCK_COUNT + "', low)\n" +
+            "return 0", Long.class);
+
+    /**
+     * 计入商品的当前库存，库存记录已删除的商品从统计中移除
+     */
+    public void apply(List<Inventory> inventories, Collection<Long> removedProductIds) {
+        if (inventories.isEmpty() && removedProductIds.isEmpty()) {
+            return;
+        }
+        List<String> args = new ArrayList<>();
+        for (Inventory inventory : inventories) {
+            int stock = inventory.getStock() != null ? inventory.getStock() : 0;
+            int threshold = inventory.getLowStockThreshold() != null ? inventory.getLowStockThreshold() : 0;
+            args.add(String.valueOf(inventory.getProductId()));
+            args.add(String.valueOf(stock));
+            args.add(stock <= threshold ? "1" : "0");
+        }
+        for (Long productId : removedProductIds) {
+            args.add(String.valueOf(productId));
+            args.add("");
+            args.add("0");
+        }
+        redisTemplate.execute(APPLY_SCRIPT, new StringRedisSerializer(), new GenericToStringSerializer<>(Long.class),
+                List.of(ITEMS_KEY, TOTALS_KEY), args.toArray());
+    }
+
+    /**
+     * 全量校准后移除已不存在的商品，并标记统计可用
+     * @param existingProductIds 校准时扫描到的全部商品ID
+     */
+    public void completeReconcile(Set<String> existingProductIds) {
+        List<Long> stale = new ArrayList<>();
+        for (Object productId : redisTemplate.opsForHash().keys(ITEMS_KEY)) {
+            if (!existingProductIds.contains(productId.toString())) {
+                stale.add(Long.valueOf(productId.toString()));
+            }
+        }
+        if (!stale.isEmpty()) {
+            apply(List.of(), stale);
+        }
+        redisTemplate.opsForValue().set(READY_KEY, System.currentTimeMillis());
+    }
+
+    public boolean isReady() {
+        return Boolean.TRUE.equals(redisTemplate.hasKey(READY_KEY));
+    }
+
+    /**
+     * 读取统计值，字段与selectInventoryStats一致
+     * @return 统计尚未完成全量校准或Redis不可用时返回null，由调用方回退到数据库聚合
+     */
+    public Map<String, Object> getStats() {
+        try {
+            if (!isReady()) {
+                return null;
+            }
+            List<byte[]> values = redisTemplate.execute((RedisCallback<List<byte[]>>) (RedisConnection connection) ->
+                    connection.hashCommands().hMGet(TOTALS_KEY.getBytes(StandardCharsets.UTF_8),
+                            TOTAL_PRODUCTS.getBytes(StandardCharsets.UTF_8),
+                            TOTAL_STOCK.getBytes(StandardCharsets.UTF_8),
+                            LOW_STOCK_COUNT.getBytes(StandardCharsets.UTF_8)));
+            if (values == null) {
+                return null;
+            }
+            long totalProducts = toLong(values.get(0));
+            long totalStock = toLong(values.get(1));
+
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put(TOTAL_PRODUCTS, totalProducts);
+            stats.put(TOTAL_STOCK, totalStock);
+            stats.put(LOW_STOCK_COUNT, toLong(values.get(2)));
+            stats.put("avgStock", totalProducts > 0
+                    ? BigDecimal.valueOf(totalStock).divide(BigDecimal.valueOf(totalProducts), 4, RoundingMode.HALF_UP)
+                    : null);
+            return stats;
+        } catch (Exception e) {
+            log.warn("库存统计读取失败，回退到数据库: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private long toLong(byte[] value) {
+        return value != null ? Long.parseLong(new String(value, StandardCharsets.UTF_8)) : 0L;
+    }
+}
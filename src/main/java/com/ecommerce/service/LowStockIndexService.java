@@ -0,0 +1,204 @@
+package com.ecommerce.service;
+
+import com.ecommerce.mapper.InventoryMapper;
+import com.ecommerce.model.entity.Inventory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 低库存索引服务
+ * 在Redis有序集合中维护每个商品的库存余量（stock - low_stock_threshold），余量不大于0即为低库存，
+ * 低库存分页查询为O(log n + 每页数量)；库存变更提交后按商品刷新（同时刷新库存统计），定期全量校准
+ */
+@Service
+@Slf4j
+public class LowStockIndexService {
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private InventoryMapper inventoryMapper;
+
+    @Autowired
+    private InventoryStatsService inventoryStatsService;
+
+    @Autowired
+    private InventoryAvailabilityCache inventoryAvailabilityCache;
+
+    @Value("${ecommerce.low-stock-index.rebuild-batch-size:2000}")
+    private int rebuildBatchSize;
+
+    // 缓存键：余量有序集合，以及全量构建完成的标记（标记缺失时查询回退到数据库）
+    private static final String MARGIN_KEY = "inventory:low_stock:margin";
+    private static final String READY_KEY = "inventory:low_stock:ready";
+
+    /**
+     * 库存变更后刷新索引，并使各节点的本地库存缓存失效，在事务中调用时于提交后执行
+     */
+    public void touch(Long productId) {
+        touch(List.of(productId));
+    }
+
+    public void touch(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(productIds);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            inventoryAvailabilityCache.invalidate(ids);
+            refresh(ids);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                inventoryAvailabilityCache.invalidate(ids);
+                refresh(ids);
+            }
+        });
+    }
+
+    /**
+     * 低库存商品ID，按余量升序（最紧缺的在前）
+     * @return 索引不可用时返回null，由调用方回退到数据库查询
+     */
+    public List<Long> pageLowStock(int page, int size) {
+        try {
+            if (!Boolean.TRUE.equals(redisTemplate.hasKey(READY_KEY))) {
+                return null;
+            }
+            Set<Object> members = redisTemplate.opsForZSet().rangeByScore(MARGIN_KEY, Double.NEGATIVE_INFINITY, 0,
+                    (long) (page - 1) * size, size);
+            List<Long> productIds = new ArrayList<>();
+            if (members != null) {
+                members.forEach(member -> productIds.add(Long.valueOf(member.toString())));
+            }
+            return productIds;
+        } catch (Exception e) {
+            log.warn("低库存索引查询失败，回退到数据库: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 低库存商品总数
+     * @return 索引不可用时返回null
+     */
+    public Long countLowStock() {
+        try {
+            if (!Boolean.TRUE.equals(redisTemplate.hasKey(READY_KEY))) {
+                return null;
+            }
+            return redisTemplate.opsForZSet().count(MARGIN_KEY, Double.NEGATIVE_INFINITY, 0);
+        } catch (Exception e) {
+            log.warn("低库存索引计数失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 启动时索引或统计未构建则全量构建
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        try {
+            if (!Boolean.TRUE.equals(redisTemplate.hasKey(READY_KEY)) || !inventoryStatsService.isReady()) {
+                rebuild();
+            }
+        } catch (Exception e) {
+            log.error("低库存索引初始化失败", e);
+        }
+    }
+
+    /**
+     * 定期全量校准，修正漏刷新或Redis数据丢失造成的偏差
+     */
+    @Scheduled(fixedDelayString = "${ecommerce.low-stock-index.rebuild-interval-ms:3600000}",
+            initialDelayString = "${ecommerce.low-stock-index.rebuild-interval-ms:3600000}")
+    public void rebuildTask() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("低库存索引校准失败", e);
+        }
+    }
+
+    /**
+     * 按商品ID游标分批扫描库存表写入索引与库存统计，并移除已删除的商品
+     */
+    public void rebuild() {
+        Set<String> seen = new HashSet<>();
+        Long lastProductId = null;
+        List<Inventory> batch;
+        do {
+            batch = inventoryMapper.selectMarginsAfter(lastProductId, rebuildBatchSize);
+            if (!batch.isEmpty()) {
+                addMargins(batch);
+                inventoryStatsService.apply(batch, List.of());
+                batch.forEach(inventory -> seen.add(String.valueOf(inventory.getProductId())));
+                lastProductId = batch.get(batch.size() - 1).getProductId();
+            }
+        } while (batch.size() == rebuildBatchSize);
+
+        Set<Object> members = redisTemplate.opsForZSet().range(MARGIN_KEY, 0, -1);
+        if (members != null) {
+            Object[] stale = members.stream().filter(member -> !seen.contains(member.toString())).toArray();
+            if (stale.length > 0) {
+                redisTemplate.opsForZSet().remove(MARGIN_KEY, stale);
+            }
+        }
+        inventoryStatsService.completeReconcile(seen);
+        redisTemplate.opsForValue().set(READY_KEY, System.currentTimeMillis());
+        log.info("低库存索引构建完成，商品数: {}", seen.size());
+    }
+
+    /**
+     * 从数据库读取商品当前库存并更新索引，库存记录已删除的商品从索引移除
+     */
+    private void refresh(List<Long> productIds) {
+        try {
+            List<Inventory> inventories = inventoryMapper.selectByProductIds(productIds);
+            addMargins(inventories);
+
+            Set<Long> missing = new TreeSet<>(productIds);
+            inventories.forEach(inventory -> missing.remove(inventory.getProductId()));
+            if (!missing.isEmpty()) {
+                redisTemplate.opsForZSet().remove(MARGIN_KEY, missing.toArray());
+            }
+            inventoryStatsService.apply(inventories, missing);
+        } catch (Exception e) {
+            // 刷新失败时由定期校准修正
+            log.warn("低库存索引与库存统计刷新失败，商品: {}, 错误: {}", productIds, e.getMessage());
+        }
+    }
+
+    private void addMargins(List<Inventory> inventories) {
+        if (inventories.isEmpty()) {
+            return;
+        }
+        Set<ZSetOperations.TypedTuple<Object>> tuples = new HashSet<>();
+        for (Inventory inventory : inventories) {
+            int threshold = inventory.getLowStockThreshold() != null ? inventory.getLowStockThreshold() : 0;
+            tuples.add(new DefaultTypedTuple<>(inventory.getProductId(), (double) (inventory.getStock() - threshold)));
+        }
+        redisTemplate.opsForZSet().add(MARGIN_KEY, tuples);
+    }
+}
@@ -0,0 +1,238 @@
+package com.ecommerce.service;
+
+import com.ecommerce.common.util.TimingWheel;
+import com.ecommerce.mapper.DeliveryMapper;
+import com.ecommerce.mapper.OrderItemMapper;
+import com.ecommerce.mapper.OrderMapper;
+import com.ecommerce.mapper.StockReservationMapper;
+import com.ecommerce.model.entity.Delivery;
+import com.ecommerce.model.entity.Order;
+import com.ecommerce.model.entity.OrderItem;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 订单超时服务
+ * 未支付订单按到期时间放入分层时间轮，到期后批量取消并释放库存预占；启动时从数据库恢复未支付订单，
+ * 另有定期扫描按预占到期时间兜底处理时间轮遗漏的订单
+ */
+@Service
+@Slf4j
+public class OrderExpireService {
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    @Autowired
+    private OrderItemMapper orderItemMapper;
+
+    @Autowired
+    private DeliveryMapper deliveryMapper;
+
+    @Autowired
+    private StockReservationMapper stockReservationMapper;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${ecommerce.order.expire-minutes:30}")
+    private long expireMinutes;
+
+    @Value("${ecommerce.order.expire-batch-size:500}")
+    private int batchSize;
+
+    // 时间轮：1秒一格，每层60格
+    private static final long TICK_MS = 1000;
+    private static final int WHEEL_SIZE = 60;
+
+    private final TimingWheel<Long> timingWheel = new TimingWheel<>(TICK_MS, WHEEL_SIZE, System.currentTimeMillis());
+
+    /**
+     * 已到期、等待批量取消的订单
+     */
+    private final List<Long> expiredOrderIds = new ArrayList<>();
+
+    /**
+     * 登记未支付订单，在事务中调用时于提交后登记
+     */
+    public void schedule(Long orderId, LocalDateTime createTime) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            addToWheel(orderId, createTime);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                addToWheel(orderId, createTime);
+            }
+        });
+    }
+
+    /**
+     * 订单库存预占的到期时间
+     */
+    public LocalDateTime getExpireTime(LocalDateTime createTime) {
+        return createTime.plusMinutes(expireMinutes);
+    }
+
+    /**
+     * 释放已取消订单的库存，需在事务中调用
+     * 有预占记录的订单按预占记录一次性释放；预占表启用前创建的订单按订单项汇总归还
+     */
+    public void releaseOrderStock(List<Long> orderIds) {
+        Set<Long> reservedOrderIds = new HashSet<>(stockReservationMapper.selectOrderIdsWithReservations(orderIds));
+        if (!reservedOrderIds.isEmpty()) {
+            inventoryService.releaseOrderReservations(new ArrayList<>(reservedOrderIds));
+        }
+
+        List<Long> legacyOrderIds = orderIds.stream().filter(orderId -> !reservedOrderIds.contains(orderId)).toList();
+        if (!legacyOrderIds.isEmpty()) {
+            Map<Long, Integer> productQuantities = new LinkedHashMap<>();
+            for (OrderItem item : orderItemMapper.sumQuantityByOrderIds(legacyOrderIds)) {
+                productQuantities.put(item.getProductId(), item.getQuantity());
+            }
+            inventoryService.batchReleaseReservedStock(productQuantities);
+        }
+    }
+
+    /**
+     * 启动时按ID游标分页加载所有未支付订单
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        try {
+            int total = 0;
+            Long lastId = null;
+            List<Order> orders;
+            do {
+                orders = orderMapper.selectUnpaidOrders(lastId, batchSize);
+                for (Order order : orders) {
+                    addToWheel(order.getId(), order.getCreateTime());
+                }
+                total += orders.size();
+                if (!orders.isEmpty()) {
+                    lastId = orders.get(orders.size() - 1).getId();
+                }
+            } while (orders.size() == batchSize);
+            log.info("未支付订单恢复完成，共 {} 个订单", total);
+        } catch (Exception e) {
+            log.error("未支付订单恢复失败", e);
+        }
+    }
+
+    /**
+     * 每秒推进时间轮，批量取消到期订单
+     */
+    @Scheduled(fixedDelay = TICK_MS)
+    public void tick() {
+        List<Long> dueOrderIds;
+        synchronized (expiredOrderIds) {
+            timingWheel.advance(System.currentTimeMillis(), expiredOrderIds::add);
+            if (expiredOrderIds.isEmpty()) {
+                return;
+            }
+            dueOrderIds = new ArrayList<>(expiredOrderIds);
+            expiredOrderIds.clear();
+        }
+
+        for (int from = 0; from < dueOrderIds.size(); from += batchSize) {
+            List<Long> batch = dueOrderIds.subList(from, Math.min(from + batchSize, dueOrderIds.size()));
+            try {
+                Integer cancelled = transactionTemplate.execute(status -> cancelExpiredOrders(batch));
+                log.info("超时订单处理完成，到期: {}, 取消: {}", batch.size(), cancelled);
+            } catch (Exception e) {
+                log.error("超时订单批量取消失败，稍后重试，订单数: {}", batch.size(), e);
+                long retryAt = System.currentTimeMillis() + TICK_MS * WHEEL_SIZE;
+                batch.forEach(orderId -> timingWheel.add(orderId, retryAt));
+            }
+        }
+    }
+
+    /**
+     * 定期扫描已到期的库存预占：仍未支付的订单取消并释放，已取消订单遗留的预占直接释放；
+     * 已支付订单的预占在支付时确认，扫描时跳过
+     */
+    @Scheduled(fixedDelayString = "${ecommerce.order.hold-sweep-interval-ms:60000}",
+            initialDelayString = "${ecommerce.order.hold-sweep-interval-ms:60000}")
+    public void sweepExpiredHolds() {
+        try {
+            int cancelled = 0;
+            Long lastOrderId = null;
+            List<Long> orderIds;
+            do {
+                orderIds = stockReservationMapper.selectExpiredHeldOrderIds(LocalDateTime.now(), lastOrderId, batchSize);
+                if (orderIds.isEmpty()) {
+                    break;
+                }
+                lastOrderId = orderIds.get(orderIds.size() - 1);
+                List<Long> batch = orderIds;
+                Integer count = transactionTemplate.execute(status -> {
+                    int expired = cancelExpiredOrders(batch);
+                    List<Long> cancelledIds = orderMapper.selectByIds(batch).stream()
+                            .filter(order -> order.getStatus() == Order.OrderStatus.CANCELLED)
+                            .map(Order::getId)
+                            .toList();
+                    if (!cancelledIds.isEmpty()) {
+                        inventoryService.releaseOrderReservations(cancelledIds);
+                    }
+                    return expired;
+                });
+                cancelled += count != null ? count : 0;
+            } while (orderIds.size() == batchSize);
+            if (cancelled > 0) {
+                log.info("到期预占扫描完成，取消订单: {}", cancelled);
+            }
+        } catch (Exception e) {
+            log.error("到期预占扫描失败", e);
+        }
+    }
+
+    /**
+     * 批量取消仍未支付的超时订单：锁定订单、更新订单与配送状态、按订单一次性释放库存预占
+     * @return 实际取消的订单数
+     */
+    private int cancelExpiredOrders(List<Long> orderIds) {
+        LocalDateTime deadline = LocalDateTime.now().minusMinutes(expireMinutes);
+        List<Long> expiredIds = orderMapper.selectExpiredUnpaidIdsForUpdate(orderIds, deadline);
+        if (expiredIds.isEmpty()) {
+            return 0;
+        }
+
+        orderMapper.batchUpdateStatus(expiredIds, Order.OrderStatus.CANCELLED.name());
+        deliveryMapper.batchUpdateStatusByOrderIds(expiredIds, Delivery.DeliveryStatus.CANCELLED.name());
+
+        releaseOrderStock(expiredIds);
+
+        return expiredIds.size();
+    }
+
+    private void addToWheel(Long orderId, LocalDateTime createTime) {
+        long deadline = getExpireTime(createTime).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        if (!timingWheel.add(orderId, deadline)) {
+            // 已超时的订单在下一次推进时处理
+            synchronized (expiredOrderIds) {
+                expiredOrderIds.add(orderId);
+            }
+        }
+    }
+}
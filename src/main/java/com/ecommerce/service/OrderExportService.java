@@ -0,0 +1,171 @@
+package com.ecommerce.service;
+
+import com.ecommerce.common.constant.ErrorCode;
+import com.ecommerce.common.exception.BusinessException;
+import com.ecommerce.mapper.OrderMapper;
+import com.ecommerce.model.dto.OrderExportDTO;
+import com.ecommerce.model.entity.Order;
+import com.ecommerce.model.vo.OrderExportVO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 订单导出服务
+ * 通过MyBatis游标逐行读取订单并直接写出，内存占用与订单总量无关
+ */
+@Service
+@Slf4j
+public class OrderExportService {
+
+    /**
+     * 导出格式
+     */
+    public enum ExportFormat {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        ExportFormat(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static ExportFormat of(String format) {
+            for (ExportFormat value : values()) {
+                if (value.name().equalsIgnoreCase(format)) {
+                    return value;
+                }
+            }
+            throw new BusinessException(ErrorCode.PARAM_ERROR, "不支持的导出格式: " + format);
+        }
+    }
+
+    private static final String CSV_HEADER =
+            "id,order_no,customer_id,customer_name,customer_phone,delivery_address,total_amount,status,order_time,create_time";
+
+    // 每写出多少行刷新一次输出流，使客户端持续收到分块数据
+    private static final int FLUSH_ROWS = 1000;
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * 校验导出条件，需在开始写出响应前调用
+     */
+    public void validate(OrderExportDTO queryDTO) {
+        if (queryDTO.getStartTime() != null && queryDTO.getEndTime() != null
+                && !queryDTO.getStartTime().isBefore(queryDTO.getEndTime())) {
+            throw new BusinessException(ErrorCode.PARAM_ERROR, "开始时间必须早于结束时间");
+        }
+    }
+
+    /**
+     * 按条件导出订单，游标在只读事务内打开并遍历
+     * @return 导出的订单数
+     */
+    @Transactional(readOnly = true)
+    public long exportOrders(OrderExportDTO queryDTO, ExportFormat format, OutputStream outputStream) throws IOException {
+        log.info("开始导出订单，格式: {}, 条件: {}", format, queryDTO);
+
+        long count = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        try (Cursor<Order> cursor = orderMapper.streamOrders(queryDTO)) {
+            if (format == ExportFormat.CSV) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+            }
+            for (Order order : cursor) {
+                OrderExportVO row = toExportVO(order);
+                if (format == ExportFormat.CSV) {
+                    writeCsvRow(writer, row);
+                } else {
+                    writer.write(objectMapper.writeValueAsString(row));
+                    writer.write('\n');
+                }
+                if (++count % FLUSH_ROWS == 0) {
+                    writer.flush();
+                }
+            }
+        }
+        writer.flush();
+
+        log.info("订单导出完成，格式: {}, 订单数: {}", format, count);
+        return count;
+    }
+
+    private OrderExportVO toExportVO(Order order) {
+        OrderExportVO vo = new OrderExportVO();
+        vo.setId(order.getId());
+        vo.setOrderNo(order.getOrderNo());
+        vo.setCustomerId(order.getCustomerId());
+        vo.setCustomerName(order.getCustomerName());
+        vo.setCustomerPhone(order.getCustomerPhone());
+        vo.setDeliveryAddress(order.getDeliveryAddress());
+        vo.setTotalAmount(order.getTotalAmount());
+        vo.setStatus(order.getStatus() != null ? order.getStatus().name() : null);
+        vo.setOrderTime(order.getOrderTime());
+        vo.setCreateTime(order.getCreateTime());
+        return vo;
+    }
+
+    private void writeCsvRow(Writer writer, OrderExportVO row) throws IOException {
+        writer.write(csv(row.getId()));
+        writer.write(',');
+        writer.write(csv(row.getOrderNo()));
+        writer.write(',');
+        writer.write(csv(row.getCustomerId()));
+        writer.write(',');
+        writer.write(csv(row.getCustomerName()));
+        writer.write(',');
+        writer.write(csv(row.getCustomerPhone()));
+        writer.write(',');
+        writer.write(csv(row.getDeliveryAddress()));
+        writer.write(',');
+        writer.write(csv(row.getTotalAmount() != null ? row.getTotalAmount().toPlainString() : null));
+        writer.write(',');
+        writer.write(csv(row.getStatus()));
+        writer.write(',');
+        writer.write(csv(row.getOrderTime()));
+        writer.write(',');
+        writer.write(csv(row.getCreateTime()));
+        writer.write('\n');
+    }
+
+    /**
+     * CSV字段转义：包含逗号、引号或换行时用双引号包裹，内部引号加倍
+     */
+    private String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,232 @@
+package com.ecommerce.service;
+
+import com.ecommerce.mapper.DeliveryMapper;
+import com.ecommerce.mapper.OrderMapper;
+import com.ecommerce.mapper.OrderOutboxMapper;
+import com.ecommerce.model.dto.DeliveryCreateDTO;
+import com.ecommerce.model.entity.Delivery;
+import com.ecommerce.model.entity.Order;
+import com.ecommerce.model.entity.OrderOutbox;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 订单事务外发箱服务
+ * 订单的下游副作用（创建配送记录、通知等）与订单在同一事务中写入order_outbox表，
+ * 由后台分批处理：单个订单内的事件按写入顺序执行，失败按指数退避重试，多节点通过SKIP LOCKED分摊
+ */
+@Service
+@Slf4j
+public class OrderOutboxService {
+
+    @Autowired
+    private OrderOutboxMapper orderOutboxMapper;
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    @Autowired
+    private DeliveryMapper deliveryMapper;
+
+    @Autowired
+    private DeliveryService deliveryService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${ecommerce.outbox.batch-size:200}")
+    private int batchSize;
+
+    @Value("${ecommerce.outbox.max-rounds:10}")
+    private int maxRounds;
+
+    @Value("${ecommerce.outbox.max-retries:10}")
+    private int maxRetries;
+
+    @Value("${ecommerce.outbox.retain-hours:72}")
+    private long retainHours;
+
+    // 最大重试间隔（秒）
+    private static final long MAX_BACKOFF_SECONDS = 300;
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    /**
+     * 每个事件在独立的保存点中执行，失败只回滚该事件
+     */
+    private TransactionTemplate savepointTemplate;
+
+    @PostConstruct
+    public void init() {
+        savepointTemplate = new TransactionTemplate(transactionManager);
+        savepointTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+    }
+
+    /**
+     * 订单创建后的下游事件：创建配送记录、发送订单创建通知，需在订单事务内调用
+     */
+    public void appendOrderCreated(Long orderId, DeliveryCreateDTO deliveryCreateDTO) {
+        List<OrderOutbox> events = new ArrayList<>();
+        events.add(OrderOutbox.create(orderId, OrderOutbox.EventType.DELIVERY_CREATE, toJson(deliveryCreateDTO)));
+        events.add(OrderOutbox.create(orderId, OrderOutbox.EventType.ORDER_CREATED_NOTIFY, null));
+        orderOutboxMapper.batchInsert(events);
+    }
+
+    /**
+     * 立即在当前事务中处理指定订单的待处理事件，用于需要依赖事件结果的同步操作（如支付时配送记录尚未创建）
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public void dispatchOrder(Long orderId) {
+        List<OrderOutbox> events = orderOutboxMapper.selectPendingByOrderIdForUpdate(orderId);
+        if (!events.isEmpty()) {
+            dispatchBatch(events);
+        }
+    }
+
+    /**
+     * 定时分批处理待处理事件，单次最多处理maxRounds批
+     */
+    @Scheduled(fixedDelayString = "${ecommerce.outbox.dispatch-interval-ms:500}")
+    public void dispatchTask() {
+        try {
+            for (int round = 0; round < maxRounds; round++) {
+                Integer claimed = transactionTemplate.execute(status -> {
+                    List<OrderOutbox> events = orderOutboxMapper.selectDispatchableForUpdate(LocalDateTime.now(), batchSize);
+                    if (!events.isEmpty()) {
+                        dispatchBatch(events);
+                    }
+                    return events.size();
+                });
+                if (claimed == null || claimed == 0) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.error("外发箱事件处理失败", e);
+        }
+    }
+
+    /**
+     * 每小时清理保留期之前已完成的事件
+     */
+    @Scheduled(fixedDelay = 3600000, initialDelay = 60000)
+    public void cleanupTask() {
+        try {
+            LocalDateTime before = LocalDateTime.now().minusHours(retainHours);
+            int deleted;
+            do {
+                deleted = orderOutboxMapper.deleteDoneBefore(before, 1000);
+            } while (deleted == 1000);
+        } catch (Exception e) {
+            log.error("外发箱清理失败", e);
+        }
+    }
+
+    /**
+     * 依次处理一批事件（调用方已锁定），成功的事件最后一次性标记完成；
+     * 某订单的事件失败后，同批中该订单后续事件不再处理，保证顺序
+     */
+    private void dispatchBatch(List<OrderOutbox> events) {
+        List<Long> doneIds = new ArrayList<>();
+        Set<Long> blockedOrderIds = new HashSet<>();
+        for (OrderOutbox event : events) {
+            if (blockedOrderIds.contains(event.getOrderId())) {
+                continue;
+            }
+            try {
+                savepointTemplate.executeWithoutResult(status -> handle(event));
+                doneIds.add(event.getId());
+            } catch (Exception e) {
+                blockedOrderIds.add(event.getOrderId());
+                markFailed(event, e);
+            }
+        }
+        if (!doneIds.isEmpty()) {
+            orderOutboxMapper.batchMarkDone(doneIds);
+        }
+        log.debug("外发箱事件处理完成，成功: {}, 总数: {}", doneIds.size(), events.size());
+    }
+
+    private void handle(OrderOutbox event) {
+        switch (event.getEventType()) {
+            case DELIVERY_CREATE:
+                createDelivery(event);
+                break;
+            case ORDER_CREATED_NOTIFY:
+                log.info("订单创建通知，订单ID: {}", event.getOrderId());
+                break;
+            default:
+                throw new IllegalStateException("未知的事件类型: " + event.getEventType());
+        }
+    }
+
+    /**
+     * 创建配送记录，已存在时视为成功；订单在此之前已被取消时配送记录直接置为取消
+     */
+    private void createDelivery(OrderOutbox event) {
+        if (deliveryMapper.selectByOrderId(event.getOrderId()) != null) {
+            return;
+        }
+        DeliveryCreateDTO createDTO = fromJson(event.getPayload(), DeliveryCreateDTO.class);
+        deliveryService.createDeliveryWithDetails(createDTO);
+
+        Order order = orderMapper.selectById(event.getOrderId());
+        if (order != null && order.getStatus() == Order.OrderStatus.CANCELLED) {
+            deliveryMapper.updateStatusByOrderId(event.getOrderId(), Delivery.DeliveryStatus.CANCELLED.name());
+        }
+    }
+
+    private void markFailed(OrderOutbox event, Exception e) {
+        int retryCount = event.getRetryCount() + 1;
+        boolean dead = retryCount >= maxRetries;
+        long backoffSeconds = Math.min(1L << Math.min(retryCount, 20), MAX_BACKOFF_SECONDS);
+        String error = e.getMessage() != null ? e.getMessage() : e.getClass().getName();
+        if (error.length() > MAX_ERROR_LENGTH) {
+            error = error.substring(0, MAX_ERROR_LENGTH);
+        }
+        orderOutboxMapper.markFailed(event.getId(), retryCount, LocalDateTime.now().plusSeconds(backoffSeconds),
+                dead ? OrderOutbox.OutboxStatus.DEAD.name() : OrderOutbox.OutboxStatus.PENDING.name(), error);
+        if (dead) {
+            log.error("外发箱事件重试次数耗尽，事件ID: {}, 订单ID: {}, 类型: {}", event.getId(), event.getOrderId(), event.getEventType(), e);
+        } else {
+            log.warn("外发箱事件处理失败，{}秒后重试，事件ID: {}, 订单ID: {}, 错误: {}", backoffSeconds, event.getId(), event.getOrderId(), error);
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("事件内容序列化失败", e);
+        }
+    }
+
+    private <T> T fromJson(String json, Class<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("事件内容解析失败", e);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.ecommerce.service;
 
+import com.ecommerce.common.result.CursorPageResult;
 import com.ecommerce.common.result.PageResult;
 import com.ecommerce.model.dto.OrderCreateDTO;
 import com.ecommerce.model.dto.OrderQueryDTO;
@@ -21,6 +22,11 @@ public interface OrderService {
      */
     OrderDetailVO getOrderDetail(Long orderId);
 
+    /**
+     * 批量获取订单详情，按传入顺序返回，不存在的订单被忽略
+     */
+    List<OrderDetailVO> getOrderDetails(List<Long> orderIds);
+
     /**
      * 取消订单
      */
@@ -36,6 +42,11 @@ public interface OrderService {
      */
     PageResult<OrderDetailsView> searchOrders(OrderQueryDTO queryDTO);
 
+    /**
+     * 游标分页查询订单列表，翻页代价与页码无关
+     */
+    CursorPageResult<OrderDetailsView> scrollOrders(OrderQueryDTO queryDTO);
+
     /**
      * 获取订单的配送信息
      */
@@ -2,19 +2,35 @@ package com.ecommerce.service;
 
 import com.ecommerce.model.entity.Product;
 import com.ecommerce.model.dto.ProductQueryDTO;
+import com.ecommerce.common.cache.CacheEnvelope;
+import com.ecommerce.common.cache.CacheLoadCoordinator;
 import com.ecommerce.common.result.PageResult;
+import com.ecommerce.model.vo.ProductSearchIds;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.springframework.stereotype.Service;
 import lombok.extern.slf4j.Slf4j;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.concurrent.TimeUnit;
-import java.util.Set;
+import java.util.function.Supplier;
 
 /**
  * 商品缓存服务
  * 提供商品相关的缓存操作
+ * 搜索结果缓存键带有代数，失效时只递增代数（一次INCR），旧代数的条目不再被访问，随过期时间自然淘汰；
+ * 代数分三层：全局代数使所有搜索失效，店铺代数只影响指定店铺的搜索，跨店代数只影响不限店铺的搜索，
+ * 某店铺的商品变更只递增该店铺代数与跨店代数
  */
 @Service
 @Slf4j
@@ -23,11 +39,17 @@ public class ProductCacheService {
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
+    @Autowired
+    private CacheLoadCoordinator cacheLoadCoordinator;
+
     // 缓存键前缀
     private static final String PRODUCT_DETAIL_PREFIX = "product:detail:";
     private static final String PRODUCT_SEARCH_PREFIX = "product:search:";
     private static final String PRODUCT_HOT_PREFIX = "product:hot";
     private static final String PRODUCT_LOW_STOCK_PREFIX = "product:low_stock";
+    private static final String PRODUCT_SEARCH_GENERATION = "product:search_generation";
+    private static final String PRODUCT_SEARCH_GENERATION_ANY_STORE = "product:search_generation:any";
+    private static final String PRODUCT_SEARCH_GENERATION_STORE_PREFIX = "product:search_generation:store:";
 
     // 缓存过期时间（分钟）
     private static final long DETAIL_CACHE_EXPIRE = 30;
@@ -35,6 +57,37 @@ public class ProductCacheService {
     private static final long HOT_CACHE_EXPIRE = 60;
     private static final long LOW_STOCK_CACHE_EXPIRE = 5;
 
+    private static final Duration SEARCH_CACHE_TTL = Duration.ofMinutes(SEARCH_CACHE_EXPIRE);
+
+    private static final int SCAN_BATCH_SIZE = 500;
+
+    /**
+     * 递增搜索缓存代数；代数不存在（如被淘汰）时以当前毫秒数为起点，避免与残留的旧代数条目重合
+     */
+    private static final RedisScript<Long> BUMP_GENERATION_SCRIPT = new DefaultRedisScript<>(
+            "for i, key in ipairs(KEYS) do\n" +
+            "  redis.call('SET', key, ARGV[1], 'NX')\n" +
+            "  redis.call('INCR', key)\n" +
+            "end\n" +
+            "return #KEYS", Long.class);
+
+    /**
+     * 读取（不存在时初始化）各层代数，以"."连接
+     */
+    private static final RedisScript<String> READ_GENERATION_SCRIPT = new DefaultRedisScript<>(
+            "local result = {}\n" +
+            "for i, key in ipairs(KEYS) do\n" +
+            "  redis.call('SET', key, ARGV[1], 'NX')\n" +
+            "  table.insert(result, redis.call('GET', key))\n" +
+            "end\n" +
+            "return table.concat(result, '.')", String.class);
+
+    /**
+     * 含库存条件的搜索结果有效期：库存变化不触发失效，由较短的有效期限制陈旧时间
+     */
+    @Value("${ecommerce.product-search.in-stock-ttl-ms:30000}")
+    private long inStockTtlMs;
+
     /**
      * 缓存商品详情
      */
@@ -69,33 +122,60 @@ public class ProductCacheService {
      * 缓存商品搜索结果
      */
     public void cacheProductSearch(ProductQueryDTO queryDTO, PageResult<Product> result) {
-        try {
-            String key = generateSearchKey(queryDTO);
-            redisTemplate.opsForValue().set(key, result, SEARCH_CACHE_EXPIRE, TimeUnit.MINUTES);
-            log.debug("缓存商品搜索结果成功，查询条件: {}", queryDTO);
-        } catch (Exception e) {
-            log.error("缓存商品搜索结果失败，查询条件: {}", queryDTO, e);
+        cacheProductSearch(queryDTO, getSearchGeneration(queryDTO.getStoreId()), result);
+    }
+
+    /**
+     * 按查询前读取的代数缓存搜索结果，查询期间发生的失效会使该条目不可见
+     */
+    public void cacheProductSearch(ProductQueryDTO queryDTO, String generation, PageResult<Product> result) {
+        if (generation == null) {
+            return;
         }
+        Duration ttl = searchTtl(queryDTO);
+        writeSearchEnvelope(generateSearchKey(queryDTO, generation),
+                new CacheEnvelope<>(result, 0, System.currentTimeMillis() + ttl.toMillis()), ttl);
     }
 
     /**
      * 获取缓存的商品搜索结果
      */
-    @SuppressWarnings("unchecked")
     public PageResult<Product> getCachedProductSearch(ProductQueryDTO queryDTO) {
-        try {
-            String key = generateSearchKey(queryDTO);
-            Object cached = redisTemplate.opsForValue().get(key);
-            if (cached instanceof PageResult) {
-                log.debug("命中商品搜索缓存，查询条件: {}", queryDTO);
-                return (PageResult<Product>) cached;
-            }
-        } catch (Exception e) {
-            log.error("获取缓存商品搜索结果失败，查询条件: {}", queryDTO, e);
+        return getCachedProductSearch(queryDTO, getSearchGeneration(queryDTO.getStoreId()));
+    }
+
+    /**
+     * 获取指定代数下缓存的商品搜索结果
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public PageResult<Product> getCachedProductSearch(ProductQueryDTO queryDTO, String generation) {
+        if (generation == null) {
+            return null;
+        }
+        CacheEnvelope<PageResult> envelope = readSearchEnvelope(generateSearchKey(queryDTO, generation), PageResult.class);
+        if (envelope != null) {
+            log.debug("命中商品搜索缓存，查询条件: {}", queryDTO);
+            return envelope.getValue();
         }
         return null;
     }
 
+    /**
+     * 读取搜索结果ID列表，未命中时回源：并发未命中只回源一次，临近过期时概率提前刷新
+     * 缓存键只由规范化的查询条件组成，不含页码与每页数量，各种分页方式共用同一份ID列表
+     * @param loader 回源查询
+     */
+    public ProductSearchIds getOrLoadProductSearchIds(ProductQueryDTO queryDTO, Supplier<ProductSearchIds> loader) {
+        String generation = getSearchGeneration(queryDTO.getStoreId());
+        if (generation == null) {
+            return loader.get();
+        }
+        String key = PRODUCT_SEARCH_PREFIX + "ids:" + generation + ":" + canonicalQuery(queryDTO);
+        Duration ttl = searchTtl(queryDTO);
+        return cacheLoadCoordinator.get(key, () -> readSearchEnvelope(key, ProductSearchIds.class),
+                envelope -> writeSearchEnvelope(key, envelope, ttl), loader, ttl);
+    }
+
     /**
      * 缓存热门商品列表
      */
@@ -163,11 +243,8 @@ public class ProductCacheService {
             String detailKey = PRODUCT_DETAIL_PREFIX + productId;
             redisTemplate.delete(detailKey);
 
-            // 删除搜索结果缓存（模糊匹配）
-            Set<String> searchKeys = redisTemplate.keys(PRODUCT_SEARCH_PREFIX + "*");
-            if (searchKeys != null && !searchKeys.isEmpty()) {
-                redisTemplate.delete(searchKeys);
-            }
+            // 递增全局代数使全部搜索结果缓存失效
+            bumpSearchGeneration(List.of(PRODUCT_SEARCH_GENERATION));
 
             // 删除热门商品缓存
             redisTemplate.delete(PRODUCT_HOT_PREFIX);
@@ -181,22 +258,31 @@ public class ProductCacheService {
         }
     }
 
+    /**
+     * 使指定店铺的搜索缓存与不限店铺的搜索缓存失效，其他店铺的搜索缓存不受影响
+     */
+    public void evictProductSearch(Long storeId) {
+        try {
+            List<String> keys = storeId != null
+                    ? List.of(PRODUCT_SEARCH_GENERATION_ANY_STORE, PRODUCT_SEARCH_GENERATION_STORE_PREFIX + storeId)
+                    : List.of(PRODUCT_SEARCH_GENERATION);
+            bumpSearchGeneration(keys);
+            log.debug("商品搜索缓存失效，店铺ID: {}", storeId);
+        } catch (Exception e) {
+            log.error("商品搜索缓存失效失败，店铺ID: {}", storeId, e);
+        }
+    }
+
     /**
      * 清空所有商品缓存
      */
     public void evictAllProductCache() {
         try {
-            // 删除所有商品详情缓存
-            Set<String> detailKeys = redisTemplate.keys(PRODUCT_DETAIL_PREFIX + "*");
-            if (detailKeys != null && !detailKeys.isEmpty()) {
-                redisTemplate.delete(detailKeys);
-            }
+            // 分批SCAN删除所有商品详情缓存，不阻塞Redis
+            deleteByPattern(PRODUCT_DETAIL_PREFIX + "*");
 
-            // 删除所有搜索结果缓存
-            Set<String> searchKeys = redisTemplate.keys(PRODUCT_SEARCH_PREFIX + "*");
-            if (searchKeys != null && !searchKeys.isEmpty()) {
-                redisTemplate.delete(searchKeys);
-            }
+            // 递增全局代数使全部搜索结果缓存失效
+            bumpSearchGeneration(List.of(PRODUCT_SEARCH_GENERATION));
 
             // 删除热门商品缓存
             redisTemplate.delete(PRODUCT_HOT_PREFIX);
@@ -210,30 +296,107 @@ public class ProductCacheService {
         }
     }
 
+    @SuppressWarnings("unchecked")
+    private <T> CacheEnvelope<T> readSearchEnvelope(String key, Class<T> type) {
+        try {
+            Object cached = redisTemplate.opsForValue().get(key);
+            if (cached instanceof CacheEnvelope<?> envelope && type.isInstance(envelope.getValue())) {
+                return (CacheEnvelope<T>) envelope;
+            }
+        } catch (Exception e) {
+            log.error("获取缓存商品搜索结果失败，缓存键: {}", key, e);
+        }
+        return null;
+    }
+
+    private void writeSearchEnvelope(String key, CacheEnvelope<?> envelope, Duration ttl) {
+        try {
+            redisTemplate.opsForValue().set(key, envelope, ttl.toMillis(), TimeUnit.MILLISECONDS);
+            log.debug("缓存商品搜索结果成功，缓存键: {}", key);
+        } catch (Exception e) {
+            log.error("缓存商品搜索结果失败，缓存键: {}", key, e);
+        }
+    }
+
+    private Duration searchTtl(ProductQueryDTO queryDTO) {
+        return queryDTO.getInStock() != null ? Duration.ofMillis(inStockTtlMs) : SEARCH_CACHE_TTL;
+    }
+
+    /**
+     * 读取搜索缓存代数：全局代数，加上店铺代数（指定店铺时）或跨店代数（不限店铺时）
+     * @return 读取失败时返回null，此时不读写搜索缓存
+     */
+    public String getSearchGeneration(Long storeId) {
+        List<String> keys = List.of(PRODUCT_SEARCH_GENERATION, storeId != null
+                ? PRODUCT_SEARCH_GENERATION_STORE_PREFIX + storeId : PRODUCT_SEARCH_GENERATION_ANY_STORE);
+        try {
+            return redisTemplate.execute(READ_GENERATION_SCRIPT, new StringRedisSerializer(), new StringRedisSerializer(),
+                    keys, String.valueOf(System.currentTimeMillis()));
+        } catch (Exception e) {
+            log.error("获取商品搜索缓存代数失败，店铺ID: {}", storeId, e);
+            return null;
+        }
+    }
+
+    private void bumpSearchGeneration(List<String> keys) {
+        redisTemplate.execute(BUMP_GENERATION_SCRIPT, new StringRedisSerializer(), new GenericToStringSerializer<>(Long.class),
+                keys, String.valueOf(System.currentTimeMillis()));
+    }
+
+    private void deleteByPattern(String pattern) {
+        ScanOptions options = ScanOptions.scanOptions().match(pattern).count(SCAN_BATCH_SIZE).build();
+        List<String> batch = new ArrayList<>(SCAN_BATCH_SIZE);
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() >= SCAN_BATCH_SIZE) {
+                    redisTemplate.unlink(batch);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            redisTemplate.unlink(batch);
+        }
+    }
+
     /**
      * 生成搜索缓存键
      */
-    private String generateSearchKey(ProductQueryDTO queryDTO) {
-        StringBuilder keyBuilder = new StringBuilder(PRODUCT_SEARCH_PREFIX);
-        
-        if (queryDTO.getName() != null) {
-            keyBuilder.append("name:").append(queryDTO.getName()).append(":");
+    private String generateSearchKey(ProductQueryDTO queryDTO, String generation) {
+        return PRODUCT_SEARCH_PREFIX + generation + ":" + canonicalQuery(queryDTO)
+                + ":page:" + queryDTO.getPageNum() + ":size:" + queryDTO.getPageSize();
+    }
+
+    /**
+     * 规范化查询条件：字段顺序固定，名称去除首尾空白并转小写（名称匹配不区分大小写），
+     * 价格去除末尾的0，空条件省略；关键词带长度前缀，名称放在最后，其中的分隔符不会与其他字段混淆
+     */
+    private String canonicalQuery(ProductQueryDTO queryDTO) {
+        StringBuilder keyBuilder = new StringBuilder();
+        if (queryDTO.getStoreId() != null) {
+            keyBuilder.append("store=").append(queryDTO.getStoreId()).append("|");
         }
-        // if (queryDTO.getCategoryId() != null) {
-        //     keyBuilder.append("category:").append(queryDTO.getCategoryId()).append(":");
-        // }
         if (queryDTO.getStatus() != null) {
-            keyBuilder.append("status:").append(queryDTO.getStatus()).append(":");
+            keyBuilder.append("status=").append(queryDTO.getStatus()).append("|");
         }
         if (queryDTO.getMinPrice() != null) {
-            keyBuilder.append("minPrice:").append(queryDTO.getMinPrice()).append(":");
+            keyBuilder.append("min=").append(queryDTO.getMinPrice().stripTrailingZeros().toPlainString()).append("|");
         }
         if (queryDTO.getMaxPrice() != null) {
-            keyBuilder.append("maxPrice:").append(queryDTO.getMaxPrice()).append(":");
+            keyBuilder.append("max=").append(queryDTO.getMaxPrice().stripTrailingZeros().toPlainString()).append("|");
+        }
+        if (queryDTO.getInStock() != null) {
+            keyBuilder.append("inStock=").append(queryDTO.getInStock()).append("|");
+        }
+        String keyword = queryDTO.getKeyword() != null ? queryDTO.getKeyword().trim().toLowerCase(Locale.ROOT) : "";
+        if (!keyword.isEmpty()) {
+            keyBuilder.append("keyword=").append(keyword.length()).append(":").append(keyword).append("|");
+        }
+        String name = queryDTO.getName() != null ? queryDTO.getName().trim().toLowerCase(Locale.ROOT) : "";
+        if (!name.isEmpty()) {
+            keyBuilder.append("name=").append(name);
         }
-        keyBuilder.append("page:").append(queryDTO.getPageNum()).append(":");
-        keyBuilder.append("size:").append(queryDTO.getPageSize());
-        
         return keyBuilder.toString();
     }
-}
\ No newline at end of file
+}
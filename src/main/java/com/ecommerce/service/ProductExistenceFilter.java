@@ -0,0 +1,242 @@
+package com.ecommerce.service;
+
+import com.ecommerce.common.util.ScalableBloomFilter;
+import com.ecommerce.mapper.ProductMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 商品存在性过滤
+ * 各节点在内存中维护全部商品ID的可扩容布隆过滤器，判断不存在的ID直接拒绝，不访问缓存与数据库，
+ * 防止遍历随机ID的请求穿透到数据库；过滤器的误判与已删除的商品由短有效期的不存在标记（Redis）兜底
+ * 新增商品立即加入本节点过滤器，提交后经Redis广播加入其他节点；删除商品提交后写入不存在标记；
+ * 启动时与定期全量重建，清除已删除的ID
+ * 过滤器未就绪时视为可能存在
+ */
+@Service
+@Slf4j
+public class ProductExistenceFilter implements MessageListener {
+
+    private static final String CHANNEL = "product:filter:added";
+
+    private static final String ABSENT_PREFIX = "product:absent:";
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Value("${ecommerce.product-filter.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 过滤器首级容量，超出后自动扩容
+     */
+    @Value("${ecommerce.product-filter.expected-insertions:100000}")
+    private long expectedInsertions;
+
+    @Value("${ecommerce.product-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    /**
+     * 不存在标记的有效期
+     */
+    @Value("${ecommerce.product-filter.absent-ttl-ms:60000}")
+    private long absentTtlMs;
+
+    @Value("${ecommerce.product-filter.rebuild-batch-size:5000}")
+    private int rebuildBatchSize;
+
+    private volatile ScalableBloomFilter filter;
+
+    /**
+     * 重建中的过滤器，重建期间新增的ID同时加入
+     */
+    private volatile ScalableBloomFilter rebuilding;
+
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (enabled) {
+            rebuildQuietly();
+        }
+    }
+
+    /**
+     * 定期全量重建：布隆过滤器不能删除，重建后已删除商品的ID不再通过
+     */
+    @Scheduled(fixedDelayString = "${ecommerce.product-filter.rebuild-interval-ms:3600000}",
+            initialDelayString = "${ecommerce.product-filter.rebuild-interval-ms:3600000}")
+    public void rebuildTask() {
+        if (enabled) {
+            rebuildQuietly();
+        }
+    }
+
+    /**
+     * 商品是否可能存在，返回false时一定不存在；只访问内存，可用于缓存条件判断
+     */
+    public boolean mightExist(Long productId) {
+        if (productId == null || productId <= 0) {
+            return false;
+        }
+        ScalableBloomFilter current = filter;
+        return !enabled || current == null || current.mightContain(productId);
+    }
+
+    /**
+     * 是否在短期内确认过不存在，Redis不可用时视为未确认
+     */
+    public boolean isKnownAbsent(Long productId) {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.hasKey(ABSENT_PREFIX + productId));
+        } catch (Exception e) {
+            log.warn("读取商品不存在标记失败，商品ID: {}, 错误: {}", productId, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 记录商品不存在，有效期内同一ID的请求不再查询数据库
+     */
+    public void markAbsent(Long productId) {
+        try {
+            redisTemplate.opsForValue().set(ABSENT_PREFIX + productId, 1, absentTtlMs, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            log.warn("写入商品不存在标记失败，商品ID: {}, 错误: {}", productId, e.getMessage());
+        }
+    }
+
+    /**
+     * 新增商品后调用：立即加入本节点过滤器，事务提交后清除该ID的不存在标记并通知其他节点
+     */
+    public void added(Long productId) {
+        if (!enabled) {
+            return;
+        }
+        put(productId);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(productId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish(productId);
+            }
+        });
+    }
+
+    /**
+     * 删除商品后调用：布隆过滤器无法移除元素，该ID在下次重建前仍会通过过滤，
+     * 因此在事务提交后写入不存在标记，标记有效期内的请求不再查询数据库
+     */
+    public void removed(Long productId) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            markAbsent(productId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                markAbsent(productId);
+            }
+        });
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            put(Long.valueOf(new String(message.getBody(), StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            log.warn("商品过滤器更新失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 全量重建：按主键分批读取商品ID建立新过滤器后整体替换
+     */
+    public void rebuild() {
+        ScalableBloomFilter rebuilt = new ScalableBloomFilter(expectedInsertions, falsePositiveRate);
+        rebuilding = rebuilt;
+        try {
+            long lastId = 0;
+            int count = 0;
+            List<Long> batch;
+            do {
+                batch = productMapper.selectIdsAfter(lastId, rebuildBatchSize);
+                for (Long id : batch) {
+                    rebuilt.put(id);
+                    lastId = id;
+                }
+                count += batch.size();
+            } while (batch.size() == rebuildBatchSize);
+            filter = rebuilt;
+            log.info("商品过滤器重建完成，商品数: {}, 占用: {}字节", count, rebuilt.byteSize());
+        } finally {
+            rebuilding = null;
+        }
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("商品过滤器重建失败", e);
+        }
+    }
+
+    private void put(Long productId) {
+        ScalableBloomFilter next = rebuilding;
+        ScalableBloomFilter current = filter;
+        if (current != null) {
+            current.put(productId);
+        }
+        if (next != null) {
+            next.put(productId);
+        }
+    }
+
+    private void publish(Long productId) {
+        try {
+            redisTemplate.delete(ABSENT_PREFIX + productId);
+            byte[] channel = CHANNEL.getBytes(StandardCharsets.UTF_8);
+            byte[] body = String.valueOf(productId).getBytes(StandardCharsets.UTF_8);
+            redisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(channel, body));
+        } catch (Exception e) {
+            // 其他节点由定期重建修正
+            log.warn("商品过滤器变更通知失败，商品ID: {}, 错误: {}", productId, e.getMessage());
+        }
+    }
+}
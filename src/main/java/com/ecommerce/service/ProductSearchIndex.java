@@ -0,0 +1,440 @@
+package com.ecommerce.service;
+
+import com.ecommerce.common.util.PostingList;
+import com.ecommerce.mapper.ProductMapper;
+import com.ecommerce.model.dto.ProductQueryDTO;
+import com.ecommerce.model.entity.Product;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 商品搜索倒排索引
+ * 对商品名称和描述按字符切分一元与二元词（中文等不含空格的文字同样适用），每个词对应一个压缩倒排列表；
+ * 店铺与状态也建倒排列表。查询时对关键词的各二元词（单字时用一元词）及店铺、状态的列表求交集，
+ * 再用保存的规范化文本逐个确认包含关键词、按价格过滤，得到的候选ID交给数据库按主键查询，替代LIKE '%关键词%'的全表扫描
+ * 商品变更提交后经Redis广播，各节点重新读取该商品更新索引；启动时与定期全量重建
+ */
+@Service
+@Slf4j
+public class ProductSearchIndex implements MessageListener {
+
+    private static final String CHANNEL = "product:index:changed";
+
+    private static final String NAME_FIELD = "n:";
+    private static final String DESCRIPTION_FIELD = "d:";
+    private static final String STORE_TERM = "s:";
+    private static final String STATUS_TERM = "t:";
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private ProductCacheService productCacheService;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Value("${ecommerce.product-index.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 候选ID超过该数量时不使用索引，回退到数据库模糊查询
+     */
+    @Value("${ecommerce.product-index.max-candidates:2000}")
+    private int maxCandidates;
+
+    /**
+     * 描述只索引前若干个字符
+     */
+    @Value("${ecommerce.product-index.max-description-chars:512}")
+    private int maxDescriptionChars;
+
+    @Value("${ecommerce.product-index.rebuild-batch-size:1000}")
+    private int rebuildBatchSize;
+
+    /**
+     * 已索引的商品：规范化的名称、描述与用于过滤的字段
+     */
+    private record Doc(Long storeId, Integer status, BigDecimal price, String name, String description) {
+    }
+
+    private static final class State {
+        private final Map<String, PostingList> postings = new HashMap<>();
+        private final Map<Long, Doc> docs = new HashMap<>();
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private State state = new State();
+
+    private volatile boolean ready = false;
+
+    /**
+     * 重建期间发生变更的商品，重建完成后重新读取
+     */
+    private volatile Set<Long> changedDuringRebuild;
+
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (enabled) {
+            rebuildQuietly();
+        }
+    }
+
+    /**
+     * 定期全量重建，修正广播丢失造成的偏差
+     */
+    @Scheduled(fixedDelayString = "${ecommerce.product-index.rebuild-interval-ms:3600000}",
+            initialDelayString = "${ecommerce.product-index.rebuild-interval-ms:3600000}")
+    public void rebuildTask() {
+        if (enabled) {
+            rebuildQuietly();
+        }
+    }
+
+    /**
+     * 按关键词查找候选商品ID
+     * @return 升序的候选ID；没有关键词条件、索引未就绪或候选过多时返回null，由调用方使用数据库模糊查询
+     */
+    public List<Long> search(ProductQueryDTO queryDTO) {
+        String name = normalize(queryDTO.getName());
+        String keyword = normalize(queryDTO.getKeyword());
+        if (!ready || (name.isEmpty() && keyword.isEmpty())) {
+            return null;
+        }
+
+        lock.readLock().lock();
+        try {
+            long[] candidates = null;
+            if (!name.isEmpty()) {
+                candidates = intersect(candidates, matchField(NAME_FIELD, name));
+            }
+            if (!keyword.isEmpty()) {
+                candidates = intersect(candidates, union(matchField(NAME_FIELD, keyword), matchField(DESCRIPTION_FIELD, keyword)));
+            }
+            if (queryDTO.getStoreId() != null) {
+                candidates = intersect(candidates, state.postings.get(STORE_TERM + queryDTO.getStoreId()));
+            }
+            if (queryDTO.getStatus() != null) {
+                candidates = intersect(candidates, state.postings.get(STATUS_TERM + queryDTO.getStatus()));
+            }
+
+            List<Long> result = new ArrayList<>();
+            for (long id : candidates) {
+                Doc doc = state.docs.get(id);
+                if (doc != null && matches(doc, name, keyword, queryDTO)) {
+                    if (result.size() >= maxCandidates) {
+                        return null;
+                    }
+                    result.add(id);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 商品新增、修改或删除后调用，事务提交后通知所有节点（含本节点）更新索引
+     */
+    public void notifyChanged(Long productId) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(productId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish(productId);
+            }
+        });
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            refresh(Long.valueOf(new String(message.getBody(), StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            log.warn("商品索引更新失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 全量重建：分批按主键读取商品建立新索引后整体替换
+     */
+    public void rebuild() {
+        Set<Long> changed = ConcurrentHashMap.newKeySet();
+        changedDuringRebuild = changed;
+        try {
+            State rebuilt = new State();
+            long lastId = 0;
+            int count = 0;
+            List<Product> batch;
+            do {
+                batch = productMapper.selectForIndex(lastId, rebuildBatchSize);
+                for (Product product : batch) {
+                    index(rebuilt, product);
+                    lastId = product.getId();
+                }
+                count += batch.size();
+            } while (batch.size() == rebuildBatchSize);
+
+            lock.writeLock().lock();
+            try {
+                state = rebuilt;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            ready = true;
+            log.info("商品索引重建完成，商品数: {}, 词数: {}", count, rebuilt.postings.size());
+        } finally {
+            changedDuringRebuild = null;
+        }
+        changed.forEach(this::refresh);
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("商品索引重建失败", e);
+        }
+    }
+
+    private void publish(Long productId) {
+        try {
+            byte[] channel = CHANNEL.getBytes(StandardCharsets.UTF_8);
+            byte[] body = String.valueOf(productId).getBytes(StandardCharsets.UTF_8);
+            redisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(channel, body));
+        } catch (Exception e) {
+            // 至少更新本节点，其他节点由定期重建修正
+            log.warn("商品索引变更通知失败，商品ID: {}, 错误: {}", productId, e.getMessage());
+            refresh(productId);
+        }
+    }
+
+    /**
+     * 重新读取商品并更新索引，商品不存在时移除
+     * 更新后再使相关店铺的搜索缓存失效：各节点索引更新有先后，先于本节点更新而缓存的结果可能基于旧索引
+     */
+    private void refresh(Long productId) {
+        Set<Long> changed = changedDuringRebuild;
+        if (changed != null) {
+            changed.add(productId);
+        }
+        Product product = productMapper.selectById(productId);
+        Long previousStoreId;
+        lock.writeLock().lock();
+        try {
+            previousStoreId = remove(state, productId);
+            if (product != null) {
+                index(state, product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (previousStoreId != null || product != null) {
+            productCacheService.evictProductSearch(product != null ? product.getStoreId() : previousStoreId);
+        }
+    }
+
+    private void index(State target, Product product) {
+        String name = normalize(product.getName());
+        String description = normalize(product.getDescription());
+        if (description.length() > maxDescriptionChars) {
+            description = description.substring(0, maxDescriptionChars);
+        }
+        Long id = product.getId();
+        target.docs.put(id, new Doc(product.getStoreId(), product.getStatus(), product.getPrice(), name, description));
+        for (String term : terms(name, description, product.getStoreId(), product.getStatus())) {
+            target.postings.computeIfAbsent(term, t -> new PostingList()).add(id);
+        }
+    }
+
+    /**
+     * 从索引移除商品
+     * @return 移除前所在店铺，未索引时返回null
+     */
+    private Long remove(State target, Long productId) {
+        Doc doc = target.docs.remove(productId);
+        if (doc == null) {
+            return null;
+        }
+        for (String term : terms(doc.name(), doc.description(), doc.storeId(), doc.status())) {
+            PostingList postings = target.postings.get(term);
+            if (postings != null) {
+                postings.remove(productId);
+                if (postings.isEmpty()) {
+                    target.postings.remove(term);
+                }
+            }
+        }
+        return doc.storeId();
+    }
+
+    private Set<String> terms(String name, String description, Long storeId, Integer status) {
+        Set<String> terms = new LinkedHashSet<>();
+        addGrams(terms, NAME_FIELD, name);
+        addGrams(terms, DESCRIPTION_FIELD, description);
+        if (storeId != null) {
+            terms.add(STORE_TERM + storeId);
+        }
+        if (status != null) {
+            terms.add(STATUS_TERM + status);
+        }
+        return terms;
+    }
+
+    /**
+     * 一元词与二元词，按码点切分
+     */
+    private void addGrams(Set<String> terms, String field, String text) {
+        int[] codePoints = text.codePoints().toArray();
+        for (int i = 0; i < codePoints.length; i++) {
+            terms.add(field + new String(codePoints, i, 1));
+            if (i + 1 < codePoints.length) {
+                terms.add(field + new String(codePoints, i, 2));
+            }
+        }
+    }
+
+    /**
+     * 字段中可能包含关键词的商品：关键词的全部二元词（单字时为一元词）的交集
+     */
+    private long[] matchField(String field, String keyword) {
+        int[] codePoints = keyword.codePoints().toArray();
+        if (codePoints.length == 1) {
+            PostingList postings = state.postings.get(field + keyword);
+            return postings != null ? postings.toArray() : new long[0];
+        }
+        List<PostingList> lists = new ArrayList<>();
+        for (int i = 0; i + 1 < codePoints.length; i++) {
+            PostingList postings = state.postings.get(field + new String(codePoints, i, 2));
+            if (postings == null) {
+                return new long[0];
+            }
+            lists.add(postings);
+        }
+        // 从最短的列表开始求交集
+        lists.sort((a, b) -> Integer.compare(a.size(), b.size()));
+        long[] result = lists.get(0).toArray();
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = lists.get(i).retainAll(result);
+        }
+        return result;
+    }
+
+    private long[] intersect(long[] candidates, PostingList postings) {
+        if (postings == null) {
+            return new long[0];
+        }
+        return candidates == null ? postings.toArray() : postings.retainAll(candidates);
+    }
+
+    private long[] intersect(long[] candidates, long[] ids) {
+        if (candidates == null) {
+            return ids;
+        }
+        long[] result = new long[Math.min(candidates.length, ids.length)];
+        int count = 0;
+        for (int i = 0, j = 0; i < candidates.length && j < ids.length; ) {
+            if (candidates[i] < ids[j]) {
+                i++;
+            } else if (candidates[i] > ids[j]) {
+                j++;
+            } else {
+                result[count++] = candidates[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private long[] union(long[] a, long[] b) {
+        long[] result = new long[a.length + b.length];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length || j < b.length) {
+            if (j >= b.length || (i < a.length && a[i] < b[j])) {
+                result[count++] = a[i++];
+            } else if (i >= a.length || b[j] < a[i]) {
+                result[count++] = b[j++];
+            } else {
+                result[count++] = a[i++];
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * 二元词交集可能包含不连续出现的情况，用原文确认，并按价格过滤
+     */
+    private boolean matches(Doc doc, String name, String keyword, ProductQueryDTO queryDTO) {
+        if (!name.isEmpty() && !doc.name().contains(name)) {
+            return false;
+        }
+        if (!keyword.isEmpty() && !doc.name().contains(keyword) && !doc.description().contains(keyword)) {
+            return false;
+        }
+        BigDecimal price = doc.price();
+        if (queryDTO.getMinPrice() != null && (price == null || price.compareTo(queryDTO.getMinPrice()) < 0)) {
+            return false;
+        }
+        return queryDTO.getMaxPrice() == null || (price != null && price.compareTo(queryDTO.getMaxPrice()) <= 0);
+    }
+
+    /**
+     * 规范化文本：全角转半角等兼容字符统一（NFKC）并转小写，与数据库不区分大小写的匹配一致
+     */
+    private static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return Normalizer.normalize(text.trim(), Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+    }
+}
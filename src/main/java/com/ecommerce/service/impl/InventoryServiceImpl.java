@@ -3,25 +3,42 @@ package com.ecommerce.service.impl;
 import com.ecommerce.common.constant.ErrorCode;
 import com.ecommerce.common.exception.BusinessException;
 import com.ecommerce.common.result.PageResult;
+import com.ecommerce.common.util.PageUtils;
 import com.ecommerce.mapper.InventoryMapper;
 import com.ecommerce.mapper.ProductMapper;
+import com.ecommerce.mapper.StockReservationMapper;
 import com.ecommerce.model.dto.InventoryCreateDTO;
 import com.ecommerce.model.dto.InventoryQueryDTO;
 import com.ecommerce.model.dto.InventoryUpdateDTO;
 import com.ecommerce.model.entity.Inventory;
+import com.ecommerce.model.entity.InventoryMovement;
 import com.ecommerce.model.entity.Product;
+import com.ecommerce.model.entity.StockReservation;
+import com.ecommerce.model.vo.InventoryAdjustResult;
 import com.ecommerce.model.vo.InventoryVO;
+import com.ecommerce.model.vo.StockReservationResult;
+import com.ecommerce.service.FlashSaleStockService;
+import com.ecommerce.service.InventoryAvailabilityCache;
+import com.ecommerce.service.InventoryLedgerService;
 import com.ecommerce.service.InventoryService;
+import com.ecommerce.service.InventoryStatsService;
+import com.ecommerce.service.LowStockIndexService;
 import com.github.pagehelper.PageHelper;
 import com.github.pagehelper.PageInfo;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
 
 @Slf4j
 @Service
@@ -32,6 +49,30 @@ public class InventoryServiceImpl implements InventoryService {
     
     @Autowired
     private ProductMapper productMapper;
+    
+    @Autowired
+    private StockReservationMapper stockReservationMapper;
+    
+    @Autowired
+    private FlashSaleStockService flashSaleStockService;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private LowStockIndexService lowStockIndexService;
+    
+    @Autowired
+    private InventoryAvailabilityCache inventoryAvailabilityCache;
+    
+    @Autowired
+    private InventoryStatsService inventoryStatsService;
+    
+    @Autowired
+    private InventoryLedgerService inventoryLedgerService;
+    
+    @Value("${ecommerce.inventory.bulk-adjust-chunk-size:1000}")
+    private int bulkAdjustChunkSize;
 
     @Override
     public Inventory getProductInventory(Long productId) {
@@ -39,7 +80,8 @@ public class InventoryServiceImpl implements InventoryService {
             throw new BusinessException(ErrorCode.PARAM_ERROR, "商品ID不能为空");
         }
         
-        Inventory inventory = inventoryMapper.selectByProductId(productId);
+        // 只读查询走本地缓存，库存变更时按版本失效
+        Inventory inventory = inventoryAvailabilityCache.get(productId);
         if (inventory == null) {
             log.warn("商品ID: {} 的库存信息不存在", productId);
             throw new BusinessException(ErrorCode.PRODUCT_NOT_FOUND, "商品库存信息不存在");
@@ -72,6 +114,11 @@ public class InventoryServiceImpl implements InventoryService {
             throw new BusinessException(ErrorCode.OPERATION_ERROR, "库存更新失败");
         }
         
+        // 热点商品同步调整Redis镜像库存
+        flashSaleStockService.adjust(productId, stockChange);
+        inventoryLedgerService.record(productId, InventoryMovement.MovementType.ADJUST, stockChange, 0);
+        lowStockIndexService.touch(productId);
+        
         log.info("商品ID: {} 库存更新成功，变化量: {}", productId, stockChange);
     }
 
@@ -97,6 +144,7 @@ public class InventoryServiceImpl implements InventoryService {
         if (result <= 0) {
             throw new BusinessException(ErrorCode.OPERATION_ERROR, "低库存阈值更新失败");
         }
+        lowStockIndexService.touch(productId);
         
         log.info("商品ID: {} 低库存阈值更新成功，新阈值: {}", productId, threshold);
     }
@@ -107,13 +155,22 @@ public class InventoryServiceImpl implements InventoryService {
             throw new BusinessException(ErrorCode.PARAM_ERROR, "分页参数错误");
         }
         
-        // 配置分页参数
-        PageHelper.startPage(page, size);
+        // 优先从低库存索引分页（按余量升序，最紧缺的在前），只回表查询当前页
+        Long total = lowStockIndexService.countLowStock();
+        List<Long> productIds = total != null ? lowStockIndexService.pageLowStock(page, size) : null;
+        if (productIds != null) {
+            Map<Long, Inventory> inventoryMap = new HashMap<>();
+            if (!productIds.isEmpty()) {
+                inventoryMapper.selectByProductIds(productIds).forEach(inventory -> inventoryMap.put(inventory.getProductId(), inventory));
+            }
+            List<Inventory> lowStockProducts = productIds.stream().map(inventoryMap::get).filter(Objects::nonNull).toList();
+            
+            return PageResult.success(PageUtils.toPageInfo(lowStockProducts, total, page, size));
+        }
         
-        // 查询低库存商品
+        // 索引不可用时回退到数据库查询
+        PageHelper.startPage(page, size);
         List<Inventory> lowStockProducts = inventoryMapper.selectLowStockProducts();
-        
-        // 转换为分页结果对象
         PageInfo<Inventory> pageInfo = new PageInfo<>(lowStockProducts);
         
         return PageResult.success(pageInfo);
@@ -147,6 +204,8 @@ public class InventoryServiceImpl implements InventoryService {
         if (result <= 0) {
             throw new BusinessException(ErrorCode.OPERATION_ERROR, "库存记录创建失败");
         }
+        inventoryLedgerService.record(inventory.getProductId(), InventoryMovement.MovementType.INIT, inventory.getStock(), 0);
+        lowStockIndexService.touch(inventory.getProductId());
         
         log.info("商品ID: {} 库存记录创建成功", productId);
     }
@@ -179,27 +238,107 @@ public class InventoryServiceImpl implements InventoryService {
         if (result <= 0) {
             throw new BusinessException(ErrorCode.OPERATION_ERROR, "库存记录创建失败");
         }
+        inventoryLedgerService.record(inventory.getProductId(), InventoryMovement.MovementType.INIT, inventory.getStock(), 0);
+        lowStockIndexService.touch(inventory.getProductId());
         
         log.info("商品ID: {} 库存记录创建成功", createDTO.getProductId());
     }
     
     @Override
-    @Transactional(rollbackFor = Exception.class)
-    public void batchUpdateInventory(List<InventoryUpdateDTO> updateDTOList) {
-        if (updateDTOList == null || updateDTOList.isEmpty()) {
-            throw new BusinessException(ErrorCode.PARAM_ERROR, "批量更新参数不能为空");
+    public InventoryAdjustResult bulkAdjustInventory(List<InventoryUpdateDTO> adjustments) {
+        if (adjustments == null || adjustments.isEmpty()) {
+            throw new BusinessException(ErrorCode.PARAM_ERROR, "批量调整参数不能为空");
         }
         
-        for (InventoryUpdateDTO updateDTO : updateDTOList) {
-            updateInventory(updateDTO.getProductId(), updateDTO.getStockChange());
-            
-            // 如果指定了低库存阈值，也一并更新
-            if (updateDTO.getLowStockThreshold() != null) {
-                updateLowStockThreshold(updateDTO.getProductId(), updateDTO.getLowStockThreshold());
+        // 合并同一商品的调整量（阈值以最后一次指定为准），按商品ID排序以固定加锁顺序
+        TreeMap<Long, InventoryUpdateDTO> merged = new TreeMap<>();
+        for (InventoryUpdateDTO adjustment : adjustments) {
+            if (!isValidAdjustment(adjustment)) {
+                continue;
+            }
+            InventoryUpdateDTO existing = merged.get(adjustment.getProductId());
+            if (existing == null) {
+                InventoryUpdateDTO copy = new InventoryUpdateDTO();
+                copy.setProductId(adjustment.getProductId());
+                copy.setStockChange(adjustment.getStockChange());
+                copy.setLowStockThreshold(adjustment.getLowStockThreshold());
+                merged.put(adjustment.getProductId(), copy);
+            } else {
+                existing.setStockChange(existing.getStockChange() + adjustment.getStockChange());
+                if (adjustment.getLowStockThreshold() != null) {
+                    existing.setLowStockThreshold(adjustment.getLowStockThreshold());
+                }
+            }
+        }
+        
+        // 分块处理，每块一个短事务：一次加锁查询判定每行结果，一条多行UPDATE应用可执行的调整
+        Map<Long, InventoryAdjustResult.AdjustStatus> outcomes = new HashMap<>();
+        List<InventoryUpdateDTO> pending = new ArrayList<>(merged.values());
+        for (int from = 0; from < pending.size(); from += bulkAdjustChunkSize) {
+            List<InventoryUpdateDTO> chunk = pending.subList(from, Math.min(from + bulkAdjustChunkSize, pending.size()));
+            try {
+                transactionTemplate.executeWithoutResult(status -> applyAdjustChunk(chunk, outcomes));
+            } catch (Exception e) {
+                log.error("批量调整库存失败，商品ID范围: {} - {}", chunk.get(0).getProductId(), chunk.get(chunk.size() - 1).getProductId(), e);
+                chunk.forEach(item -> outcomes.put(item.getProductId(), InventoryAdjustResult.AdjustStatus.FAILED));
+            }
+        }
+        
+        InventoryAdjustResult result = new InventoryAdjustResult();
+        for (InventoryUpdateDTO adjustment : adjustments) {
+            InventoryAdjustResult.AdjustStatus status = isValidAdjustment(adjustment)
+                    ? outcomes.get(adjustment.getProductId())
+                    : InventoryAdjustResult.AdjustStatus.INVALID;
+            result.addItem(adjustment.getProductId(), adjustment.getStockChange(), status);
+        }
+        
+        log.info("批量调整库存完成，请求行数: {}, 商品数: {}, 成功: {}, 失败: {}",
+                adjustments.size(), merged.size(), result.getSuccessCount(), result.getFailCount());
+        return result;
+    }
+    
+    private void applyAdjustChunk(List<InventoryUpdateDTO> chunk, Map<Long, InventoryAdjustResult.AdjustStatus> outcomes) {
+        Map<Long, Inventory> inventoryMap = new HashMap<>();
+        for (Inventory inventory : inventoryMapper.selectByProductIdsForUpdate(chunk.stream().map(InventoryUpdateDTO::getProductId).toList())) {
+            inventoryMap.put(inventory.getProductId(), inventory);
+        }
+        
+        List<InventoryUpdateDTO> applicable = new ArrayList<>();
+        Map<Long, InventoryAdjustResult.AdjustStatus> chunkOutcomes = new HashMap<>();
+        for (InventoryUpdateDTO item : chunk) {
+            Inventory inventory = inventoryMap.get(item.getProductId());
+            if (inventory == null) {
+                chunkOutcomes.put(item.getProductId(), InventoryAdjustResult.AdjustStatus.NOT_FOUND);
+            } else if (inventory.getStock() + item.getStockChange() < 0) {
+                chunkOutcomes.put(item.getProductId(), InventoryAdjustResult.AdjustStatus.INSUFFICIENT_STOCK);
+            } else {
+                applicable.add(item);
+                chunkOutcomes.put(item.getProductId(), InventoryAdjustResult.AdjustStatus.APPLIED);
             }
         }
         
-        log.info("批量更新库存完成，共更新 {} 个商品", updateDTOList.size());
+        if (!applicable.isEmpty()) {
+            int updated = inventoryMapper.bulkAdjustStock(applicable);
+            if (updated != applicable.size()) {
+                // 行已加锁，不应出现；出现时整块回滚
+                throw new IllegalStateException("批量调整库存影响行数不一致，预期: " + applicable.size() + ", 实际: " + updated);
+            }
+            for (InventoryUpdateDTO item : applicable) {
+                if (item.getStockChange() != 0) {
+                    flashSaleStockService.adjust(item.getProductId(), item.getStockChange());
+                    inventoryLedgerService.record(item.getProductId(), InventoryMovement.MovementType.ADJUST, item.getStockChange(), 0);
+                }
+            }
+            lowStockIndexService.touch(applicable.stream().map(InventoryUpdateDTO::getProductId).toList());
+        }
+        outcomes.putAll(chunkOutcomes);
+    }
+    
+    private boolean isValidAdjustment(InventoryUpdateDTO adjustment) {
+        return adjustment != null
+                && adjustment.getProductId() != null && adjustment.getProductId() > 0
+                && adjustment.getStockChange() != null
+                && (adjustment.getLowStockThreshold() == null || adjustment.getLowStockThreshold() >= 0);
     }
     
     @Override
@@ -208,42 +347,25 @@ public class InventoryServiceImpl implements InventoryService {
             queryDTO = new InventoryQueryDTO();
         }
         
-        // 配置分页参数
+        // 配置分页参数，关联商品信息并组合全部条件，一次查询完成
         PageHelper.startPage(queryDTO.getPageNum(), queryDTO.getPageSize());
-        
-        List<Inventory> inventoryList;
-        
-        if (queryDTO.getIsLowStock() != null && queryDTO.getIsLowStock()) {
-            // 查询低库存商品
-            inventoryList = inventoryMapper.selectLowStockProducts();
-        } else if (queryDTO.getIsLowStock() != null && !queryDTO.getIsLowStock()) {
-            // 查询非低库存商品（库存充足的商品）
-            inventoryList = inventoryMapper.selectNonLowStockProducts();
-        } else if (queryDTO.getMinStock() != null || queryDTO.getMaxStock() != null) {
-            // 按库存范围查询
-            inventoryList = inventoryMapper.selectByStockRange(queryDTO.getMinStock(), queryDTO.getMaxStock());
-        } else if (queryDTO.getProductId() != null) {
-            // 查询单个商品库存
-            Inventory inventory = inventoryMapper.selectByProductId(queryDTO.getProductId());
-            inventoryList = inventory != null ? List.of(inventory) : List.of();
-        } else {
-            // 查询所有库存
-            inventoryList = inventoryMapper.selectAll();
-        }
-        
-        // 转换为VO对象
-        List<InventoryVO> inventoryVOList = inventoryList.stream().map(inventory -> {
-            Product product = productMapper.selectById(inventory.getProductId());
-            return new InventoryVO(inventory, product);
-        }).toList();
-        
-        PageInfo<InventoryVO> pageInfo = new PageInfo<>(inventoryVOList);
+        List<Inventory> inventoryList = inventoryMapper.selectByCondition(queryDTO);
+        PageInfo<Inventory> inventoryPage = new PageInfo<>(inventoryList);
+        
+        // 转换为VO对象，保留分页信息
+        PageInfo<InventoryVO> pageInfo = new PageInfo<>(inventoryList.stream().map(InventoryVO::new).toList());
+        pageInfo.setTotal(inventoryPage.getTotal());
+        pageInfo.setPageNum(inventoryPage.getPageNum());
+        pageInfo.setPageSize(inventoryPage.getPageSize());
+        pageInfo.setPages(inventoryPage.getPages());
         return PageResult.success(pageInfo);
     }
     
     @Override
     public Map<String, Object> getInventoryStats() {
-        return inventoryMapper.selectInventoryStats();
+        // 优先读取增量维护的统计值，未完成全量校准或Redis不可用时回退到全表聚合
+        Map<String, Object> stats = inventoryStatsService.getStats();
+        return stats != null ? stats : inventoryMapper.selectInventoryStats();
     }
     
     @Override
@@ -252,7 +374,8 @@ public class InventoryServiceImpl implements InventoryService {
             return false;
         }
         
-        Inventory inventory = inventoryMapper.selectByProductId(productId);
+        // 展示用的有货判断允许短暂陈旧，预占时由条件更新再次校验
+        Inventory inventory = inventoryAvailabilityCache.get(productId);
         if (inventory == null) {
             return false;
         }
@@ -267,21 +390,14 @@ public class InventoryServiceImpl implements InventoryService {
             throw new BusinessException(ErrorCode.PARAM_ERROR, "参数不能为空或无效");
         }
         
-        Inventory inventory = inventoryMapper.selectByProductId(productId);
-        if (inventory == null) {
-            throw new BusinessException(ErrorCode.PRODUCT_NOT_FOUND, "商品库存信息不存在");
-        }
-        
-        // 检查可用库存是否充足
-        if (!inventory.hasEnoughStock(quantity)) {
-            throw new BusinessException(ErrorCode.PRODUCT_INSUFFICIENT_STOCK, "可用库存不足，无法锁定");
-        }
-        
-        // 锁定库存
+        // 条件更新同时完成可用库存校验与锁定
         int result = inventoryMapper.lockStock(productId, quantity);
         if (result <= 0) {
-            throw new BusinessException(ErrorCode.OPERATION_ERROR, "库存锁定失败");
+            assertInventoryExists(productId);
+            throw new BusinessException(ErrorCode.PRODUCT_INSUFFICIENT_STOCK, "可用库存不足，无法锁定");
         }
+        inventoryLedgerService.record(productId, InventoryMovement.MovementType.LOCK, 0, quantity);
+        lowStockIndexService.touch(productId);
         
         log.info("商品ID: {} 库存锁定成功，锁定数量: {}", productId, quantity);
     }
@@ -293,22 +409,14 @@ public class InventoryServiceImpl implements InventoryService {
             throw new BusinessException(ErrorCode.PARAM_ERROR, "参数不能为空或无效");
         }
         
-        Inventory inventory = inventoryMapper.selectByProductId(productId);
-        if (inventory == null) {
-            throw new BusinessException(ErrorCode.PRODUCT_NOT_FOUND, "商品库存信息不存在");
-        }
-        
-        // 检查锁定库存是否充足
-        Integer lockedStock = inventory.getLockedStock() != null ? inventory.getLockedStock() : 0;
-        if (lockedStock < quantity) {
-            throw new BusinessException(ErrorCode.OPERATION_ERROR, "锁定库存不足，无法释放");
-        }
-        
-        // 释放库存
+        // 条件更新同时完成锁定库存校验与释放
         int result = inventoryMapper.releaseStock(productId, quantity);
         if (result <= 0) {
-            throw new BusinessException(ErrorCode.OPERATION_ERROR, "库存释放失败");
+            assertInventoryExists(productId);
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "锁定库存不足，无法释放");
         }
+        inventoryLedgerService.record(productId, InventoryMovement.MovementType.RELEASE, 0, -quantity);
+        lowStockIndexService.touch(productId);
         
         log.info("商品ID: {} 库存释放成功，释放数量: {}", productId, quantity);
     }
@@ -320,23 +428,234 @@ public class InventoryServiceImpl implements InventoryService {
             throw new BusinessException(ErrorCode.PARAM_ERROR, "参数不能为空或无效");
         }
         
-        Inventory inventory = inventoryMapper.selectByProductId(productId);
-        if (inventory == null) {
-            throw new BusinessException(ErrorCode.PRODUCT_NOT_FOUND, "商品库存信息不存在");
+        // 条件更新同时完成库存校验与扣减（减少实际库存数量）
+        int result = inventoryMapper.deductStock(productId, quantity);
+        if (result <= 0) {
+            assertInventoryExists(productId);
+            throw new BusinessException(ErrorCode.PRODUCT_INSUFFICIENT_STOCK, "库存不足，无法扣减");
         }
+        inventoryLedgerService.record(productId, InventoryMovement.MovementType.DEDUCT, -quantity, 0);
+        lowStockIndexService.touch(productId);
         
-        // 检查库存是否充足
-        if (inventory.getStock() < quantity) {
-            throw new BusinessException(ErrorCode.PRODUCT_INSUFFICIENT_STOCK, "库存不足，无法扣减");
+        log.info("商品ID: {} 库存扣减成功，扣减数量: {}", productId, quantity);
+    }
+    
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public StockReservationResult reserveStock(Long orderId, Map<Long, Integer> productQuantities, LocalDateTime expireTime) {
+        if (orderId == null || expireTime == null) {
+            throw new BusinessException(ErrorCode.PARAM_ERROR, "订单ID与预占到期时间不能为空");
+        }
+        if (productQuantities == null || productQuantities.isEmpty()) {
+            throw new BusinessException(ErrorCode.PARAM_ERROR, "预占参数不能为空");
+        }
+        // 先整体校验，避免部分商品已预占后才发现参数错误；空的商品ID也无法参与排序
+        productQuantities.forEach((productId, quantity) -> {
+            if (productId == null || productId <= 0 || quantity == null || quantity <= 0) {
+                throw new BusinessException(ErrorCode.PARAM_ERROR,
+                        "商品ID与预占数量必须为正数，商品ID: " + productId + ", 数量: " + quantity);
+            }
+        });
+        
+        StockReservationResult reservationResult = new StockReservationResult();
+        List<StockReservation> reservations = new ArrayList<>();
+        
+        // 按商品ID排序，使并发请求以相同顺序加行锁
+        for (Map.Entry<Long, Integer> entry : new TreeMap<>(productQuantities).entrySet()) {
+            Long productId = entry.getKey();
+            Integer quantity = entry.getValue();
+            
+            if (flashSaleStockService.isHot(productId)) {
+                // 热点商品在Redis中预扣，未镜像时返回非空并改走MySQL
+                try {
+                    if (flashSaleStockService.reserve(Map.of(productId, quantity)).isEmpty()) {
+                        reservationResult.addItem(productId, quantity, StockReservationResult.ReservationStatus.RESERVED);
+                        // Redis中预扣的数量不计入锁定库存
+                        reservations.add(StockReservation.hold(orderId, productId, quantity, 0, expireTime));
+                        continue;
+                    }
+                } catch (BusinessException e) {
+                    reservationResult.addItem(productId, quantity, StockReservationResult.ReservationStatus.INSUFFICIENT_STOCK);
+                    continue;
+                }
+            }
+            
+            if (inventoryMapper.reserveStock(productId, quantity) > 0) {
+                reservationResult.addItem(productId, quantity, StockReservationResult.ReservationStatus.RESERVED);
+                reservations.add(StockReservation.hold(orderId, productId, quantity, quantity, expireTime));
+                inventoryLedgerService.record(productId, InventoryMovement.MovementType.RESERVE, -quantity, quantity);
+                lowStockIndexService.touch(productId);
+            } else if (inventoryMapper.existsByProductId(productId)) {
+                // 仅在失败时额外查询一次，用于区分失败原因
+                reservationResult.addItem(productId, quantity, StockReservationResult.ReservationStatus.INSUFFICIENT_STOCK);
+            } else {
+                reservationResult.addItem(productId, quantity, StockReservationResult.ReservationStatus.NOT_FOUND);
+            }
         }
         
-        // 扣减库存（减少实际库存数量）
-        int result = inventoryMapper.updateStock(productId, -quantity);
-        if (result <= 0) {
-            throw new BusinessException(ErrorCode.OPERATION_ERROR, "库存扣减失败");
+        // 登记预占记录，与整单预占一样由取消、支付、超时按订单释放或确认
+        if (!reservations.isEmpty()) {
+            stockReservationMapper.batchInsert(reservations);
         }
         
-        log.info("商品ID: {} 库存扣减成功，扣减数量: {}", productId, quantity);
+        log.info("订单ID: {} 库存预占完成，请求商品数: {}, 失败商品数: {}",
+                orderId, productQuantities.size(), reservationResult.getFailedItems().size());
+        return reservationResult;
+    }
+    
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void reserveForOrder(Long orderId, Map<Long, Integer> productQuantities, LocalDateTime expireTime) {
+        Map<Long, Integer> lockedQuantities = reserveBatch(productQuantities);
+        
+        // 登记预占记录，取消、支付、超时时按订单一次性释放或确认
+        List<StockReservation> reservations = new ArrayList<>();
+        productQuantities.forEach((productId, quantity) -> reservations.add(StockReservation.hold(
+                orderId, productId, quantity, lockedQuantities.getOrDefault(productId, 0), expireTime)));
+        stockReservationMapper.batchInsert(reservations);
+    }
+    
+    /**
+     * 批量预占库存
+     * @return 在MySQL中预占（计入锁定库存）的商品，其余为Redis中预扣的热点商品
+     */
+    private Map<Long, Integer> reserveBatch(Map<Long, Integer> productQuantities) {
+        if (productQuantities == null || productQuantities.isEmpty()) {
+            throw new BusinessException(ErrorCode.PARAM_ERROR, "预占参数不能为空");
+        }
+        for (Map.Entry<Long, Integer> entry : productQuantities.entrySet()) {
+            if (entry.getKey() == null || entry.getValue() == null || entry.getValue() <= 0) {
+                throw new BusinessException(ErrorCode.PARAM_ERROR, "参数不能为空或无效");
+            }
+        }
+        
+        // 热点商品在Redis中预扣，其余商品按商品ID排序，使并发订单以相同顺序加行锁，减少死锁
+        Map<Long, Integer> sortedQuantities = new TreeMap<>(flashSaleStockService.reserve(productQuantities));
+        if (sortedQuantities.isEmpty()) {
+            return sortedQuantities;
+        }
+        
+        // 一条语句完成校验与预占，只有可用库存充足的行会被更新
+        int reserved = inventoryMapper.batchReserveStock(sortedQuantities);
+        if (reserved != sortedQuantities.size()) {
+            log.warn("批量预占库存失败，请求商品数: {}, 成功预占: {}", sortedQuantities.size(), reserved);
+            throw new BusinessException(ErrorCode.PRODUCT_INSUFFICIENT_STOCK, "商品库存不足");
+        }
+        inventoryLedgerService.record(sortedQuantities, InventoryMovement.MovementType.RESERVE, -1, 1);
+        lowStockIndexService.touch(sortedQuantities.keySet());
+        
+        log.info("批量预占库存成功，商品数: {}", reserved);
+        return sortedQuantities;
+    }
+    
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void batchReleaseReservedStock(Map<Long, Integer> productQuantities) {
+        if (productQuantities == null || productQuantities.isEmpty()) {
+            return;
+        }
+        
+        // 与reserveBatch相同的划分：热点商品在Redis中预扣，未计入锁定库存，只加回库存并归还镜像
+        List<StockReservation> items = new ArrayList<>();
+        new TreeMap<>(productQuantities).forEach((productId, quantity) -> {
+            StockReservation item = new StockReservation();
+            item.setProductId(productId);
+            item.setQuantity(quantity);
+            item.setLockedQuantity(flashSaleStockService.isHot(productId) ? 0 : quantity);
+            items.add(item);
+        });
+        int released = inventoryMapper.releaseReservations(items);
+        
+        for (StockReservation item : items) {
+            flashSaleStockService.adjust(item.getProductId(), item.getQuantity());
+            inventoryLedgerService.record(item.getProductId(), InventoryMovement.MovementType.RETURN,
+                    item.getQuantity(), -item.getLockedQuantity());
+        }
+        lowStockIndexService.touch(productQuantities.keySet());
+        
+        log.info("批量归还预占库存完成，商品数: {}, 更新行数: {}", productQuantities.size(), released);
+    }
+    
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public int releaseOrderReservations(List<Long> orderIds) {
+        if (orderIds == null || orderIds.isEmpty()) {
+            return 0;
+        }
+        
+        List<StockReservation> reservations = stockReservationMapper.selectByOrderIdsForUpdate(orderIds,
+                List.of(StockReservation.ReservationStatus.HELD.name(), StockReservation.ReservationStatus.COMMITTED.name()));
+        if (reservations.isEmpty()) {
+            return 0;
+        }
+        
+        // 按商品汇总：全部加回库存，仅预占中的记录解除锁定
+        List<StockReservation> items = aggregateByProduct(reservations);
+        inventoryMapper.releaseReservations(items);
+        stockReservationMapper.batchUpdateStatus(reservations.stream().map(StockReservation::getId).toList(),
+                StockReservation.ReservationStatus.RELEASED.name());
+        
+        for (StockReservation item : items) {
+            // 热点商品同步归还Redis镜像库存
+            flashSaleStockService.adjust(item.getProductId(), item.getQuantity());
+            inventoryLedgerService.record(item.getProductId(), InventoryMovement.MovementType.RETURN,
+                    item.getQuantity(), -item.getLockedQuantity());
+        }
+        lowStockIndexService.touch(items.stream().map(StockReservation::getProductId).toList());
+        
+        log.info("释放订单预占完成，订单数: {}, 预占记录数: {}, 商品数: {}", orderIds.size(), reservations.size(), items.size());
+        return reservations.size();
+    }
+    
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public int commitOrderReservations(List<Long> orderIds) {
+        if (orderIds == null || orderIds.isEmpty()) {
+            return 0;
+        }
+        
+        List<StockReservation> reservations = stockReservationMapper.selectByOrderIdsForUpdate(orderIds,
+                List.of(StockReservation.ReservationStatus.HELD.name()));
+        if (reservations.isEmpty()) {
+            return 0;
+        }
+        
+        List<StockReservation> items = aggregateByProduct(reservations).stream()
+                .filter(item -> item.getLockedQuantity() > 0)
+                .toList();
+        if (!items.isEmpty()) {
+            inventoryMapper.commitReservations(items);
+            for (StockReservation item : items) {
+                inventoryLedgerService.record(item.getProductId(), InventoryMovement.MovementType.COMMIT, 0, -item.getLockedQuantity());
+            }
+            lowStockIndexService.touch(items.stream().map(StockReservation::getProductId).toList());
+        }
+        stockReservationMapper.batchUpdateStatus(reservations.stream().map(StockReservation::getId).toList(),
+                StockReservation.ReservationStatus.COMMITTED.name());
+        
+        log.info("确认订单预占完成，订单数: {}, 预占记录数: {}", orderIds.size(), reservations.size());
+        return reservations.size();
+    }
+    
+    /**
+     * 按商品汇总预占记录，商品ID升序；只有预占中的记录计入解除锁定数量
+     */
+    private List<StockReservation> aggregateByProduct(List<StockReservation> reservations) {
+        Map<Long, StockReservation> aggregated = new TreeMap<>();
+        for (StockReservation reservation : reservations) {
+            StockReservation item = aggregated.computeIfAbsent(reservation.getProductId(), productId -> {
+                StockReservation sum = new StockReservation();
+                sum.setProductId(productId);
+                sum.setQuantity(0);
+                sum.setLockedQuantity(0);
+                return sum;
+            });
+            item.setQuantity(item.getQuantity() + reservation.getQuantity());
+            if (reservation.getStatus() == StockReservation.ReservationStatus.HELD) {
+                item.setLockedQuantity(item.getLockedQuantity() + reservation.getLockedQuantity());
+            }
+        }
+        return new ArrayList<>(aggregated.values());
     }
     
     @Override
@@ -347,6 +666,15 @@ public class InventoryServiceImpl implements InventoryService {
         return inventoryMapper.existsByProductId(productId);
     }
     
+    /**
+     * 条件更新未命中时校验库存记录是否存在
+     */
+    private void assertInventoryExists(Long productId) {
+        if (!inventoryMapper.existsByProductId(productId)) {
+            throw new BusinessException(ErrorCode.PRODUCT_NOT_FOUND, "商品库存信息不存在");
+        }
+    }
+    
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void deleteInventory(Long productId) {
@@ -363,6 +691,7 @@ public class InventoryServiceImpl implements InventoryService {
         if (result <= 0) {
             throw new BusinessException(ErrorCode.OPERATION_ERROR, "删除库存记录失败");
         }
+        lowStockIndexService.touch(productId);
         
         log.info("商品ID: {} 库存记录删除成功", productId);
     }
@@ -2,6 +2,7 @@ package com.ecommerce.service.impl;
 
 import com.ecommerce.common.constant.ErrorCode;
 import com.ecommerce.common.exception.BusinessException;
+import com.ecommerce.common.result.CursorPageResult;
 import com.ecommerce.common.result.PageResult;
 import com.ecommerce.common.util.IdGenerator;
 import com.github.pagehelper.PageInfo;
@@ -21,16 +22,26 @@ import com.ecommerce.model.vo.OrderDetailVO;
 import com.ecommerce.model.vo.SimpleOrderVO;
 import com.ecommerce.service.DeliveryService;
 import com.ecommerce.service.InventoryService;
+import com.ecommerce.service.OrderExpireService;
+import com.ecommerce.service.OrderOutboxService;
 import com.ecommerce.service.OrderService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @RequiredArgsConstructor
@@ -44,6 +55,14 @@ public class OrderServiceImpl implements OrderService {
     private final InventoryService inventoryService;
     private final DeliveryService deliveryService;
     private final IdGenerator idGenerator;
+    private final OrderExpireService orderExpireService;
+    private final OrderOutboxService orderOutboxService;
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private static final String ORDER_COUNT_PREFIX = "order:count:";
+    private static final long ORDER_COUNT_CACHE_SECONDS = 60;
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+    private static final int MAX_BATCH_DETAIL_SIZE = 200;
 
     @Override
     @Transactional(rollbackFor = Exception.class)
@@ -58,23 +77,27 @@ public class OrderServiceImpl implements OrderService {
         // 2. 生成订单号
         String orderNo = generateOrderNo();
 
-        // 3. 计算订单总金额并验证库存
+        // 3. 合并同一商品的数量，并一次性批量查询商品信息
+        Map<Long, Integer> productQuantities = new LinkedHashMap<>();
+        for (OrderCreateDTO.OrderItemDTO itemDTO : dto.getItems()) {
+            productQuantities.merge(itemDTO.getProductId(), itemDTO.getQuantity(), Integer::sum);
+        }
+
+        Map<Long, Product> productMap = new HashMap<>();
+        for (Product product : productMapper.selectByIds(new ArrayList<>(productQuantities.keySet()))) {
+            productMap.put(product.getId(), product);
+        }
+
+        // 4. 计算订单总金额
         BigDecimal totalAmount = BigDecimal.ZERO;
         List<OrderItem> orderItems = new ArrayList<>();
 
         for (OrderCreateDTO.OrderItemDTO itemDTO : dto.getItems()) {
-            // 查询商品信息
-            Product product = productMapper.selectById(itemDTO.getProductId());
+            Product product = productMap.get(itemDTO.getProductId());
             if (product == null) {
                 throw new BusinessException(ErrorCode.PRODUCT_NOT_FOUND, "商品不存在");
             }
 
-            // 验证库存
-            boolean stockAvailable = inventoryService.checkStock(itemDTO.getProductId(), itemDTO.getQuantity());
-            if (!stockAvailable) {
-                throw new BusinessException(ErrorCode.PRODUCT_INSUFFICIENT_STOCK, "商品库存不足");
-            }
-
             // 创建订单项
             OrderItem orderItem = new OrderItem();
             orderItem.setProductId(itemDTO.getProductId());
@@ -86,56 +109,34 @@ public class OrderServiceImpl implements OrderService {
             totalAmount = totalAmount.add(orderItem.getItemAmount());
         }
 
-        // 4. 创建订单
+        // 5. 创建订单
         Order order = Order.create(orderNo, dto.getCustomerId(), totalAmount);
         int result = orderMapper.insert(order);
         if (result <= 0) {
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "订单创建失败");
         }
 
-        // 5. 创建订单项
+        // 6. 批量创建订单项
         for (OrderItem orderItem : orderItems) {
             orderItem.setOrderId(order.getId());
-            orderItemMapper.insert(orderItem);
-
-            // 6. 锁定库存
-            try {
-                inventoryService.lockStock(orderItem.getProductId(), orderItem.getQuantity());
-            } catch (Exception e) {
-                log.error("库存锁定失败，商品ID: {}, 数量: {}", orderItem.getProductId(), orderItem.getQuantity(), e);
-                throw new BusinessException(ErrorCode.INVENTORY_LOCK_FAILED, "库存锁定失败");
-            }
         }
+        orderItemMapper.batchInsert(orderItems);
 
-        // 7. 创建配送记录
-        try {
-            DeliveryCreateDTO deliveryCreateDTO = new DeliveryCreateDTO();
-            deliveryCreateDTO.setOrderId(order.getId());
-            deliveryCreateDTO.setConsigneeName(dto.getConsigneeName());
-            deliveryCreateDTO.setConsigneePhone(dto.getConsigneePhone());
-            deliveryCreateDTO.setDeliveryAddress(dto.getDeliveryAddress());
-            deliveryCreateDTO.setRemark(dto.getRemark());
-
-            log.info("准备创建配送记录，订单ID: {}, 收货人: {}, 电话: {}, 地址: {}",
-                    order.getId(), dto.getConsigneeName(), dto.getConsigneePhone(), dto.getDeliveryAddress());
-
-            deliveryService.createDeliveryWithDetails(deliveryCreateDTO);
-            log.info("配送记录创建成功，订单ID: {}", order.getId());
-        } catch (Exception e) {
-            log.error("配送记录创建失败，订单ID: {}, 错误信息: {}", order.getId(), e.getMessage(), e);
-            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "配送记录创建失败: " + e.getMessage());
-        }
+        // 7. 写入配送创建等下游事件，由外发箱异步处理，不占用订单事务时间
+        DeliveryCreateDTO deliveryCreateDTO = new DeliveryCreateDTO();
+        deliveryCreateDTO.setOrderId(order.getId());
+        deliveryCreateDTO.setConsigneeName(dto.getConsigneeName());
+        deliveryCreateDTO.setConsigneePhone(dto.getConsigneePhone());
+        deliveryCreateDTO.setDeliveryAddress(dto.getDeliveryAddress());
+        deliveryCreateDTO.setRemark(dto.getRemark());
+        orderOutboxService.appendOrderCreated(order.getId(), deliveryCreateDTO);
 
-        // 8. 实际扣减库存（订单创建成功后）
-        for (OrderItem orderItem : orderItems) {
-            try {
-                inventoryService.deductStock(orderItem.getProductId(), orderItem.getQuantity());
-                log.info("库存扣减成功，商品ID: {}, 扣减数量: {}", orderItem.getProductId(), orderItem.getQuantity());
-            } catch (Exception e) {
-                log.error("库存扣减失败，商品ID: {}, 数量: {}", orderItem.getProductId(), orderItem.getQuantity(), e);
-                throw new BusinessException(ErrorCode.OPERATION_ERROR, "库存扣减失败");
-            }
-        }
+        // 8. 批量预占库存并登记预占记录（校验、锁定与扣减在一条语句中完成），放在最后以缩短行锁持有时间
+        inventoryService.reserveForOrder(order.getId(), productQuantities, orderExpireService.getExpireTime(order.getCreateTime()));
+        log.info("库存预占成功，订单ID: {}, 商品数: {}", order.getId(), productQuantities.size());
+
+        // 9. 登记超时取消（事务提交后加入时间轮）
+        orderExpireService.schedule(order.getId(), order.getCreateTime());
 
         log.info("订单创建成功，订单号: {}, 订单ID: {}", orderNo, order.getId());
         return order;
@@ -154,21 +155,49 @@ public class OrderServiceImpl implements OrderService {
         // 查询订单项
         List<OrderItem> orderItems = orderItemMapper.selectByOrderId(orderId);
 
-        // 构建返回对象
-        OrderDetailVO orderDetailVO = new OrderDetailVO();
-        orderDetailVO.setId(order.getId());
-        orderDetailVO.setOrderNo(order.getOrderNo());
-        orderDetailVO.setCustomerId(order.getCustomerId());
-        orderDetailVO.setOrderTime(order.getOrderTime());
-        orderDetailVO.setTotalAmount(order.getTotalAmount());
-        orderDetailVO.setStatus(order.getStatus().name());
-        orderDetailVO.setCreateTime(order.getCreateTime());
-        orderDetailVO.setUpdateTime(order.getUpdateTime());
-
-        // 设置订单项信息
-        List<OrderDetailVO.OrderItemVO> itemVOs = new ArrayList<>();
+        return buildOrderDetails(List.of(order), orderItems).get(0);
+    }
+
+    @Override
+    public List<OrderDetailVO> getOrderDetails(List<Long> orderIds) {
+        if (orderIds == null || orderIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (orderIds.size() > MAX_BATCH_DETAIL_SIZE) {
+            throw new BusinessException(ErrorCode.PARAM_ERROR, "单次最多查询" + MAX_BATCH_DETAIL_SIZE + "个订单");
+        }
+        log.info("批量查询订单详情，订单数: {}", orderIds.size());
+
+        List<Long> distinctIds = orderIds.stream().distinct().toList();
+        Map<Long, Order> orderMap = new HashMap<>();
+        for (Order order : orderMapper.selectByIds(distinctIds)) {
+            orderMap.put(order.getId(), order);
+        }
+
+        List<Order> orders = distinctIds.stream().map(orderMap::get).filter(Objects::nonNull).toList();
+        if (orders.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<OrderItem> orderItems = orderItemMapper.selectByOrderIds(orders.stream().map(Order::getId).toList());
+        return buildOrderDetails(orders, orderItems);
+    }
+
+    /**
+     * 组装订单详情：所有订单项涉及的商品通过一次批量查询获取
+     */
+    private List<OrderDetailVO> buildOrderDetails(List<Order> orders, List<OrderItem> orderItems) {
+        Map<Long, Product> productMap = new HashMap<>();
+        List<Long> productIds = orderItems.stream().map(OrderItem::getProductId).distinct().toList();
+        if (!productIds.isEmpty()) {
+            for (Product product : productMapper.selectByIds(productIds)) {
+                productMap.put(product.getId(), product);
+            }
+        }
+
+        Map<Long, List<OrderDetailVO.OrderItemVO>> itemsByOrder = new HashMap<>();
         for (OrderItem item : orderItems) {
-            Product product = productMapper.selectById(item.getProductId());
+            Product product = productMap.get(item.getProductId());
 
             OrderDetailVO.OrderItemVO itemVO = new OrderDetailVO.OrderItemVO();
             itemVO.setId(item.getId());
@@ -178,11 +207,24 @@ public class OrderServiceImpl implements OrderService {
             itemVO.setUnitPrice(item.getUnitPrice());
             itemVO.setItemAmount(item.getItemAmount());
 
-            itemVOs.add(itemVO);
+            itemsByOrder.computeIfAbsent(item.getOrderId(), k -> new ArrayList<>()).add(itemVO);
         }
-        orderDetailVO.setItems(itemVOs);
 
-        return orderDetailVO;
+        List<OrderDetailVO> result = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            OrderDetailVO orderDetailVO = new OrderDetailVO();
+            orderDetailVO.setId(order.getId());
+            orderDetailVO.setOrderNo(order.getOrderNo());
+            orderDetailVO.setCustomerId(order.getCustomerId());
+            orderDetailVO.setOrderTime(order.getOrderTime());
+            orderDetailVO.setTotalAmount(order.getTotalAmount());
+            orderDetailVO.setStatus(order.getStatus().name());
+            orderDetailVO.setCreateTime(order.getCreateTime());
+            orderDetailVO.setUpdateTime(order.getUpdateTime());
+            orderDetailVO.setItems(itemsByOrder.getOrDefault(order.getId(), new ArrayList<>()));
+            result.add(orderDetailVO);
+        }
+        return result;
     }
 
     @Override
@@ -203,31 +245,16 @@ public class OrderServiceImpl implements OrderService {
 
         log.info("订单状态检查通过，当前状态: {}，订单ID: {}", order.getStatus(), orderId);
 
-        // 更新订单状态
-        int result = orderMapper.updateStatus(orderId, Order.OrderStatus.CANCELLED.name());
+        // 更新订单状态（条件更新，避免与超时取消并发时重复返还库存）
+        int result = orderMapper.cancelIfNotCancelled(orderId);
         if (result <= 0) {
-            log.error("订单状态更新失败，订单ID: {}", orderId);
-            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "订单取消失败");
+            log.warn("订单已被取消，订单ID: {}", orderId);
+            throw new BusinessException(ErrorCode.ORDER_ALREADY_CANCELLED, "订单已取消");
         }
         log.info("订单状态更新成功，订单ID: {}", orderId);
 
-        // 返还库存
-        List<OrderItem> orderItems = orderItemMapper.selectByOrderId(orderId);
-        log.info("开始返还库存，订单项数量: {}，订单ID: {}", orderItems.size(), orderId);
-        
-        for (OrderItem item : orderItems) {
-            try {
-                log.info("开始返还库存，商品ID: {}, 返还数量: {}", item.getProductId(), item.getQuantity());
-                
-                // 直接增加库存数量，而不是释放锁定库存
-                inventoryService.updateInventory(item.getProductId(), item.getQuantity());
-                
-                log.info("库存返还成功，商品ID: {}, 返还数量: {}", item.getProductId(), item.getQuantity());
-            } catch (Exception e) {
-                log.error("库存返还失败，商品ID: {}, 数量: {}, 错误信息: {}", item.getProductId(), item.getQuantity(), e.getMessage(), e);
-                // 继续处理其他商品的库存返还
-            }
-        }
+        // 按预占记录一次性归还库存并解除锁定
+        orderExpireService.releaseOrderStock(List.of(orderId));
 
         log.info("订单取消成功，订单ID: {}", orderId);
     }
@@ -242,12 +269,22 @@ public class OrderServiceImpl implements OrderService {
             throw new BusinessException(ErrorCode.ORDER_NOT_FOUND, "订单不存在");
         }
 
+        // 配送记录由外发箱异步创建，尚未创建时先在当前事务中处理该订单的待处理事件
+        if (deliveryService.getDeliveryByOrderId(orderId) == null) {
+            orderOutboxService.dispatchOrder(orderId);
+        }
+
         // 调用配送服务更新配送状态
         boolean result = deliveryService.updateDeliveryStatus(orderId, status);
         if (!result) {
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "配送状态更新失败");
         }
 
+        // 离开待付款状态即视为已支付，确认库存预占（已确认的不重复处理）
+        if (!Delivery.DeliveryStatus.PAYING.name().equals(status) && !Delivery.DeliveryStatus.CANCELLED.name().equals(status)) {
+            inventoryService.commitOrderReservations(List.of(orderId));
+        }
+
         log.info("配送状态更新成功，订单ID: {}, 新状态: {}", orderId, status);
     }
 
@@ -261,20 +298,95 @@ public class OrderServiceImpl implements OrderService {
 
         List<OrderDetailsView> orders = orderMapper.searchOrders(queryDTO);
 
-        // 查询总数
-        Long total = orderMapper.countOrders(queryDTO);
-
         // 构建PageInfo对象
         PageInfo<OrderDetailsView> pageInfo = new PageInfo<>(orders);
-        pageInfo.setTotal(total);
         pageInfo.setPageNum(queryDTO.getPageNum());
         pageInfo.setPageSize(queryDTO.getPageSize());
-        pageInfo.setPages((int) Math.ceil((double) total / queryDTO.getPageSize()));
+
+        // 查询总数（可关闭；相同条件的总数短时间缓存），不查询时total为-1
+        if (queryDTO.isWithTotal()) {
+            long total = countOrders(queryDTO);
+            pageInfo.setTotal(total);
+            pageInfo.setPages((int) Math.ceil((double) total / queryDTO.getPageSize()));
+        } else {
+            pageInfo.setTotal(-1);
+            pageInfo.setPages(0);
+        }
 
         // 返回PageResult
         return PageResult.success(pageInfo);
     }
 
+    @Override
+    public CursorPageResult<OrderDetailsView> scrollOrders(OrderQueryDTO queryDTO) {
+        log.info("游标分页查询订单列表，查询条件: {}", queryDTO);
+
+        if (queryDTO.getPageSize() < 1 || queryDTO.getPageSize() > MAX_CURSOR_PAGE_SIZE) {
+            throw new BusinessException(ErrorCode.PARAM_ERROR, "每页大小必须在1-" + MAX_CURSOR_PAGE_SIZE + "之间");
+        }
+        decodeCursor(queryDTO);
+
+        List<OrderDetailsView> orders = orderMapper.searchOrdersByCursor(queryDTO);
+
+        // 多取的一条只用于判断是否还有下一页
+        String nextCursor = null;
+        if (orders.size() > queryDTO.getPageSize()) {
+            orders = new ArrayList<>(orders.subList(0, queryDTO.getPageSize()));
+            OrderDetailsView last = orders.get(orders.size() - 1);
+            nextCursor = encodeCursor(last.getCreateTime(), last.getOrderId());
+        }
+        return CursorPageResult.of(orders, queryDTO.getPageSize(), nextCursor);
+    }
+
+    /**
+     * 查询订单总数，结果按查询条件缓存一小段时间，Redis不可用时直接查库
+     */
+    private long countOrders(OrderQueryDTO queryDTO) {
+        String key = ORDER_COUNT_PREFIX + queryDTO.getCustomerId() + ":" + queryDTO.getStatus() + ":"
+                + queryDTO.getOrderNo() + ":" + queryDTO.getStartTime() + ":" + queryDTO.getEndTime();
+        try {
+            Object cached = redisTemplate.opsForValue().get(key);
+            if (cached instanceof Number) {
+                return ((Number) cached).longValue();
+            }
+        } catch (Exception e) {
+            log.warn("读取订单总数缓存失败: {}", e.getMessage());
+        }
+
+        long total = orderMapper.countOrders(queryDTO);
+        try {
+            redisTemplate.opsForValue().set(key, total, ORDER_COUNT_CACHE_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            log.warn("写入订单总数缓存失败: {}", e.getMessage());
+        }
+        return total;
+    }
+
+    /**
+     * 游标令牌为"创建时间|订单ID"的URL安全Base64编码，对调用方不透明
+     */
+    private String encodeCursor(LocalDateTime createTime, Long orderId) {
+        String raw = createTime + "|" + orderId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void decodeCursor(OrderQueryDTO queryDTO) {
+        queryDTO.setCursorCreateTime(null);
+        queryDTO.setCursorId(null);
+        String cursor = queryDTO.getCursor();
+        if (cursor == null || cursor.isEmpty()) {
+            return;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            queryDTO.setCursorCreateTime(LocalDateTime.parse(raw.substring(0, separator)));
+            queryDTO.setCursorId(Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new BusinessException(ErrorCode.PARAM_ERROR, "无效的分页游标");
+        }
+    }
+
     @Override
     public OrderDetailVO.DeliveryVO getOrderDeliveryInfo(Long orderId) {
         log.info("查询订单配送信息，订单ID: {}", orderId);
@@ -329,7 +441,7 @@ public class OrderServiceImpl implements OrderService {
      * 生成订单号
      */
     private String generateOrderNo() {
-        return "ORD" + System.currentTimeMillis() + idGenerator.nextId();
+        return "ORD" + idGenerator.nextId();
     }
 
     /**
@@ -7,22 +7,36 @@ import com.ecommerce.common.result.PageResult;
 import com.ecommerce.common.result.Result;
 import com.ecommerce.mapper.ProductMapper;
 import com.ecommerce.model.entity.Product;
+import com.ecommerce.model.vo.ProductSearchIds;
+import com.ecommerce.service.ProductCacheService;
+import com.ecommerce.service.ProductExistenceFilter;
+import com.ecommerce.service.ProductSearchIndex;
 import com.ecommerce.service.ProductService;
 import com.ecommerce.common.exception.BusinessException;
+import com.ecommerce.common.util.PageUtils;
 import com.github.pagehelper.PageHelper;
 import com.github.pagehelper.PageInfo;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import lombok.extern.slf4j.Slf4j;
 
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 import java.util.Date;
 import com.ecommerce.common.constant.ErrorCode;
@@ -36,27 +50,129 @@ public class ProductServiceImpl implements ProductService {
     @Autowired
     private ProductMapper productMapper;
 
+    @Autowired
+    private ProductCacheService productCacheService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private ProductExistenceFilter productExistenceFilter;
+
+    /**
+     * 搜索结果缓存的ID数量，请求的分页超出该范围时直接查询数据库
+     */
+    @Value("${ecommerce.product-search.id-window:1000}")
+    private int searchIdWindow;
+
     @Override
     public PageResult<Product> searchProducts(ProductQueryDTO queryDTO) {
-        // 配置分页参数
-        PageHelper.startPage(queryDTO.getPageNum(), queryDTO.getPageSize());
+        queryDTO.setName(trimToNull(queryDTO.getName()));
+        queryDTO.setKeyword(trimToNull(queryDTO.getKeyword()));
+
+        // 深分页不缓存，直接查询
+        if ((long) queryDTO.getPageNum() * queryDTO.getPageSize() > searchIdWindow) {
+            List<Long> candidateIds = productSearchIndex.search(queryDTO);
+            if (candidateIds != null && candidateIds.isEmpty()) {
+                return PageResult.success(PageUtils.toPageInfo(new ArrayList<>(), 0, queryDTO.getPageNum(), queryDTO.getPageSize()));
+            }
+            PageHelper.startPage(queryDTO.getPageNum(), queryDTO.getPageSize());
+            List<Product> products = productMapper.selectByCondition(queryDTO, candidateIds);
+            return PageResult.success(new PageInfo<>(products));
+        }
+
+        // 按查询条件缓存前searchIdWindow个商品ID，截取当前页后经商品详情缓存取商品
+        ProductSearchIds searchIds = productCacheService.getOrLoadProductSearchIds(queryDTO, () -> loadSearchIds(queryDTO));
+        List<Long> ids = searchIds.getIds();
+        int from = Math.min(queryDTO.getOffset(), ids.size());
+        int to = Math.min(from + queryDTO.getPageSize(), ids.size());
+        List<Product> products = loadProducts(ids.subList(from, to));
+        return PageResult.success(PageUtils.toPageInfo(products, searchIds.getTotal(), queryDTO.getPageNum(), queryDTO.getPageSize()));
+    }
+
+    /**
+     * 查询前searchIdWindow个商品ID，命中数超过该值时另行统计总数
+     * 有名称或关键词条件时先由搜索索引得到候选ID，数据库只按主键过滤和排序
+     */
+    private ProductSearchIds loadSearchIds(ProductQueryDTO queryDTO) {
+        List<Long> candidateIds = productSearchIndex.search(queryDTO);
+        if (candidateIds != null && candidateIds.isEmpty()) {
+            return new ProductSearchIds(new ArrayList<>(), 0);
+        }
+        PageHelper.startPage(1, searchIdWindow, false);
+        List<Long> ids = productMapper.selectIdsByCondition(queryDTO, candidateIds);
+        long total = ids.size() < searchIdWindow ? ids.size() : productMapper.countByCondition(queryDTO, candidateIds);
+        return new ProductSearchIds(new ArrayList<>(ids), total);
+    }
 
-        // 执行查询
-        List<Product> products = productMapper.selectByCondition(queryDTO);
+    private String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
 
-        // 转换为分页结果对象
-        return PageResult.success(new PageInfo<>(products));
+    /**
+     * 按ID顺序取商品：先查商品详情缓存，未命中的批量查询数据库并回填
+     */
+    private List<Product> loadProducts(List<Long> ids) {
+        Cache detailCache = cacheManager.getCache("product:detail");
+        Map<Long, Product> productMap = new HashMap<>();
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : ids) {
+            Product product = detailCache != null ? detailCache.get(id, Product.class) : null;
+            if (product != null) {
+                productMap.put(id, product);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        if (!missingIds.isEmpty()) {
+            for (Product product : productMapper.selectByIds(missingIds)) {
+                productMap.put(product.getId(), product);
+                if (detailCache != null) {
+                    detailCache.put(product.getId(), product);
+                }
+            }
+        }
+        return ids.stream().map(productMap::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * 事务提交后使商品所在店铺的搜索缓存失效
+     */
+    private void evictSearchAfterCommit(Long storeId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            productCacheService.evictProductSearch(storeId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                productCacheService.evictProductSearch(storeId);
+            }
+        });
     }
 
     @Override
-    @Cacheable(value = "product:detail", key = "#a0", unless = "#result == null")
+    @Cacheable(value = "product:detail", key = "#a0", sync = true, condition = "@productExistenceFilter.mightExist(#a0)")
     public Product getProductDetail(Long productId) {
         if (productId == null) {
             throw new BusinessException(400, "商品ID不能为空");
         }
+
+        // 过滤器判定不存在时不经过缓存（见condition）直接到这里；过滤器误判的ID由不存在标记拦截
+        if (!productExistenceFilter.mightExist(productId) || productExistenceFilter.isKnownAbsent(productId)) {
+            throw new BusinessException(404, "商品不存在");
+        }
         
         Product product = productMapper.selectById(productId);
         if (product == null) {
+            productExistenceFilter.markAbsent(productId);
             throw new BusinessException(404, "商品不存在");
         }
         
@@ -101,6 +217,9 @@ public class ProductServiceImpl implements ProductService {
         }
         
         log.info("成功创建商品，ID: {}, 名称: {}", product.getId(), product.getName());
+        evictSearchAfterCommit(product.getStoreId());
+        productSearchIndex.notifyChanged(product.getId());
+        productExistenceFilter.added(product.getId());
         
         // 返回结果，如果有警告信息则包含在响应中
         if (warningMessage != null) {
@@ -112,7 +231,7 @@ public class ProductServiceImpl implements ProductService {
 
     @Override
     @Transactional
-    @CacheEvict(value = {"product:detail", "product:search"}, key = "#a0")
+    @CacheEvict(value = "product:detail", key = "#a0")
     public Result<String> updateProduct(Long id, ProductUpdateDTO productUpdateDTO) {
         log.info("更新商品，商品ID: {}", id);
         
@@ -194,6 +313,13 @@ public class ProductServiceImpl implements ProductService {
             }
             
             log.info("商品更新成功，商品ID: {}", id);
+            productSearchIndex.notifyChanged(id);
+
+            // 名称、价格、状态影响搜索命中与排序，其他字段由商品详情缓存失效覆盖
+            if (productUpdateDTO.getName() != null || productUpdateDTO.getPrice() != null
+                    || productUpdateDTO.getStatus() != null) {
+                evictSearchAfterCommit(existingProduct.getStoreId());
+            }
             
             // 返回结果，如果有警告信息则包含在响应中
             if (warningMessage != null) {
@@ -229,7 +355,7 @@ public class ProductServiceImpl implements ProductService {
 
     @Override
     @Transactional
-    @CacheEvict(value = {"product:detail", "product:search"}, key = "#a0")
+    @CacheEvict(value = "product:detail", key = "#a0")
     public void deleteProduct(Long productId) {
         if (productId == null) {
             throw new BusinessException(400, "商品ID不能为空");
@@ -248,11 +374,14 @@ public class ProductServiceImpl implements ProductService {
         }
         
         log.info("成功删除商品，ID: {}, 名称: {}", productId, product.getName());
+        evictSearchAfterCommit(product.getStoreId());
+        productSearchIndex.notifyChanged(product.getId());
+        productExistenceFilter.removed(productId);
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = {"product:detail", "product:search"}, key = "#a0")
+    @CacheEvict(value = "product:detail", key = "#a0")
     public void toggleProductStatus(Long productId, Integer status) {
         log.info("切换商品状态，商品ID: {}, 目标状态: {}", productId, status);
         
@@ -298,6 +427,8 @@ public class ProductServiceImpl implements ProductService {
 
             log.info("商品状态切换成功，商品ID: {}, 从{}切换到{}",
                     productId, existingProduct.getStatusDesc(), targetStatus.getDesc());
+            evictSearchAfterCommit(existingProduct.getStoreId());
+            productSearchIndex.notifyChanged(productId);
         } catch (BusinessException e) {
             log.error("切换商品状态失败，商品ID: {}, 目标状态: {}, 错误: {}", productId, status, e.getMessage());
             throw e;
@@ -0,0 +1,73 @@
+package com.ecommerce.benchmark;
+
+import com.ecommerce.common.util.IdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ID生成吞吐量基准：单个与批量生成，1、4与全部CPU线程共用一个生成器
+ * 默认12位序列号时单个生成器每毫秒最多4096个ID，多线程下吞吐量受此上限约束，批量生成的每次调用计为n个ID
+ * 运行：mvn test-compile 后执行本类的main方法，或
+ * java -cp target/test-classes:target/classes:依赖 org.openjdk.jmh.Main IdGeneratorBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdGeneratorBenchmark {
+
+    private static final int BATCH = 100;
+
+    private IdGenerator generator;
+
+    @Setup
+    public void setup() {
+        generator = new IdGenerator(1704067200000L, 0, 0, 5, 5, 12, 10);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long nextIdOneThread() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long nextIdFourThreads() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public long nextIdAllThreads() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    @OperationsPerInvocation(BATCH)
+    public long[] nextIdsFourThreads() {
+        return generator.nextIds(BATCH);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(IdGeneratorBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,127 @@
+package com.ecommerce.benchmark;
+
+import com.ecommerce.common.cache.CacheEnvelope;
+import com.ecommerce.common.cache.CompactRedisSerializer;
+import com.ecommerce.common.config.RedisConfig;
+import com.ecommerce.model.entity.Product;
+import com.ecommerce.model.vo.ProductSearchIds;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis值序列化基准：带类型信息的JSON与紧凑二进制格式的编码、解码耗时
+ * 载荷为商品详情缓存条目（detail）、1000个ID的搜索结果缓存条目（searchIds）与50个商品的热门列表（hotList），
+ * 两种格式的字节数在初始化时打印
+ * 运行：mvn test-compile 后执行本类的main方法，或
+ * java -cp target/test-classes:target/classes:依赖 org.openjdk.jmh.Main RedisSerializerBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RedisSerializerBenchmark {
+
+    @Param({"detail", "searchIds", "hotList"})
+    private String payload;
+
+    private RedisSerializer<Object> json;
+    private RedisSerializer<Object> compact;
+    private Object value;
+    private byte[] jsonBytes;
+    private byte[] compactBytes;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        json = RedisConfig.jsonSerializer();
+        compact = new CompactRedisSerializer(json, 4096, RedisConfig.COMPACT_TYPES);
+        value = switch (payload) {
+            case "detail" -> new CacheEnvelope<>(product(123_456L), 12, System.currentTimeMillis() + 60_000);
+            case "searchIds" -> new CacheEnvelope<>(searchIds(), 30, System.currentTimeMillis() + 60_000);
+            default -> hotList();
+        };
+        jsonBytes = json.serialize(value);
+        compactBytes = compact.serialize(value);
+        System.out.printf("%n%s 字节数: json=%d, compact=%d%n", payload, jsonBytes.length, compactBytes.length);
+    }
+
+    @Benchmark
+    public byte[] jsonEncode() {
+        return json.serialize(value);
+    }
+
+    @Benchmark
+    public byte[] compactEncode() {
+        return compact.serialize(value);
+    }
+
+    @Benchmark
+    public Object jsonDecode() {
+        return json.deserialize(jsonBytes);
+    }
+
+    @Benchmark
+    public Object compactDecode() {
+        return compact.deserialize(compactBytes);
+    }
+
+    private static ProductSearchIds searchIds() {
+        // 升序但间隔不规则的ID
+        List<Long> ids = new ArrayList<>();
+        long id = 100_000;
+        for (int i = 0; i < 1000; i++) {
+            id += ThreadLocalRandom.current().nextInt(1, 500);
+            ids.add(id);
+        }
+        return new ProductSearchIds(ids, 25_000);
+    }
+
+    private static List<Product> hotList() {
+        List<Product> products = new ArrayList<>();
+        for (long id = 1; id <= 50; id++) {
+            products.add(product(100_000 + id * 37));
+        }
+        return products;
+    }
+
+    private static Product product(long id) {
+        Product product = new Product();
+        product.setId(id);
+        product.setStoreId(id % 100);
+        product.setName("无线蓝牙耳机 Pro " + id);
+        product.setDescription("主动降噪，续航30小时，支持多设备切换，商品编号" + id);
+        product.setPrice(BigDecimal.valueOf(29_990 + id % 1000, 2));
+        product.setSalesCount((int) (id % 5000));
+        product.setImageUrl("https://cdn.example.com/products/" + id + ".jpg");
+        product.setCreateTime(LocalDateTime.now().minusDays(id % 30));
+        product.setUpdateTime(LocalDateTime.now());
+        product.setStatus(1);
+        return product;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RedisSerializerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
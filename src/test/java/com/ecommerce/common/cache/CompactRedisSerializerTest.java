@@ -0,0 +1,169 @@
+package com.ecommerce.common.cache;
+
+import com.ecommerce.common.config.RedisConfig;
+import com.ecommerce.model.entity.Inventory;
+import com.ecommerce.model.entity.Product;
+import com.ecommerce.model.entity.Store;
+import com.ecommerce.model.vo.ProductSearchIds;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompactRedisSerializerTest {
+
+    private final RedisSerializer<Object> json = RedisConfig.jsonSerializer();
+    private final CompactRedisSerializer serializer = new CompactRedisSerializer(json, 4096, RedisConfig.COMPACT_TYPES);
+
+    @Test
+    void roundTripsProduct() {
+        assertRoundTrip(product(42L));
+        assertRoundTrip(new Product());
+    }
+
+    @Test
+    void roundTripsInventory() {
+        Inventory inventory = new Inventory();
+        inventory.setId(1L);
+        inventory.setProductId(42L);
+        inventory.setStock(100);
+        inventory.setLockedStock(-3);
+        inventory.setLowStockThreshold(10);
+        inventory.setUpdateTime(LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123_456_789));
+        inventory.setProductName("测试商品");
+        inventory.setProductPrice(new BigDecimal("-0.005"));
+        assertRoundTrip(inventory);
+        assertRoundTrip(new Inventory());
+    }
+
+    @Test
+    void roundTripsStore() {
+        Store store = Store.create("旗舰店", "张三", "13800000000");
+        store.setId(Long.MAX_VALUE);
+        store.setDescription("");
+        assertRoundTrip(store);
+        assertRoundTrip(new Store());
+    }
+
+    @Test
+    void roundTripsProductSearchIds() {
+        List<Long> ids = new ArrayList<>(List.of(900L, 3L, 3L, Long.MIN_VALUE, Long.MAX_VALUE, 0L));
+        assertRoundTrip(new ProductSearchIds(ids, 123_456_789_000L));
+        assertRoundTrip(new ProductSearchIds(new ArrayList<>(), 0));
+        assertRoundTrip(new ProductSearchIds());
+    }
+
+    @Test
+    void roundTripsCacheEnvelope() {
+        assertRoundTrip(new CacheEnvelope<>(product(7L), 12, Long.MAX_VALUE));
+        assertRoundTrip(new CacheEnvelope<>(new ProductSearchIds(new ArrayList<>(List.of(1L, 2L)), 2), 0, 1L));
+        assertRoundTrip(new CacheEnvelope<>());
+    }
+
+    @Test
+    void roundTripsListsAndMapsWithMixedValues() {
+        Map<Object, Object> map = new LinkedHashMap<>();
+        map.put("a", 1);
+        map.put(2L, null);
+        map.put("nested", new ArrayList<>(Arrays.asList(true, false, 1.5d, null, "x")));
+        assertRoundTrip(map);
+        assertRoundTrip(new ArrayList<>(List.of(product(1L), product(2L))));
+    }
+
+    @Test
+    void compressesLargePayloads() {
+        List<Product> products = new ArrayList<>();
+        for (long id = 1; id <= 200; id++) {
+            products.add(product(id));
+        }
+        byte[] bytes = serializer.serialize(products);
+        assertEquals(1, bytes[1] & 1, "超过阈值的数据应被压缩");
+        assertEquals(products, serializer.deserialize(bytes));
+    }
+
+    @Test
+    void skipsCompressionWhenSavingIsSmall() {
+        // 差值编码后的ID几乎不可压缩
+        CompactRedisSerializer eager = new CompactRedisSerializer(json, 16, RedisConfig.COMPACT_TYPES);
+        Random random = new Random(1);
+        List<Long> ids = new ArrayList<>();
+        long id = 100_000;
+        for (int i = 0; i < 1000; i++) {
+            id += 1 + random.nextInt(499);
+            ids.add(id);
+        }
+        ProductSearchIds value = new ProductSearchIds(ids, 1000);
+        byte[] bytes = eager.serialize(value);
+        assertEquals(0, bytes[1] & 1);
+        assertEquals(value, eager.deserialize(bytes));
+    }
+
+    @Test
+    void fingerprintMismatchReadsAsMiss() {
+        CompactRedisSerializer older = new CompactRedisSerializer(json, 1024, List.of(Product.class, CacheEnvelope.class));
+        byte[] bytes = older.serialize(new CacheEnvelope<>(product(1L), 5, 10));
+        assertNull(serializer.deserialize(bytes));
+    }
+
+    @Test
+    void scalarsAndUnregisteredTypesStayJson() {
+        // Lua脚本与INCR命令读写的数值必须保持文本格式
+        assertArrayEquals("42".getBytes(StandardCharsets.UTF_8), serializer.serialize(42));
+        assertArrayEquals(json.serialize(7L), serializer.serialize(7L));
+        assertArrayEquals(json.serialize("text"), serializer.serialize("text"));
+        assertEquals(42, serializer.deserialize(serializer.serialize(42)));
+    }
+
+    @Test
+    void readsExistingJsonValues() {
+        Product product = product(9L);
+        assertEquals(product, serializer.deserialize(json.serialize(product)));
+        CacheEnvelope<Product> envelope = new CacheEnvelope<>(product, 3, 4);
+        assertEquals(envelope, serializer.deserialize(json.serialize(envelope)));
+    }
+
+    @Test
+    void rejectsTruncatedData() {
+        byte[] bytes = serializer.serialize(product(1L));
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 3);
+        assertThrows(SerializationException.class, () -> serializer.deserialize(truncated));
+        assertNull(serializer.deserialize(new byte[0]));
+        assertNull(serializer.deserialize(null));
+    }
+
+    private void assertRoundTrip(Object value) {
+        byte[] bytes = serializer.serialize(value);
+        assertTrue(bytes.length > 0 && bytes[0] == (byte) 0xC1, "注册类型应使用紧凑格式");
+        assertEquals(value, serializer.deserialize(bytes));
+    }
+
+    private static Product product(long id) {
+        Product product = new Product();
+        product.setId(id);
+        product.setStoreId(3L);
+        product.setName("无线蓝牙耳机 Pro " + id);
+        product.setDescription("主动降噪，续航30小时");
+        product.setPrice(new BigDecimal("299.90"));
+        product.setSalesCount(0);
+        product.setImageUrl("https://example.com/p/" + id + ".png");
+        product.setCreateTime(LocalDateTime.of(2024, 1, 2, 3, 4, 5));
+        product.setUpdateTime(LocalDateTime.of(2024, 1, 2, 3, 4, 5, 600_000_000));
+        product.setStatus(1);
+        return product;
+    }
+}
@@ -0,0 +1,196 @@
+package com.ecommerce.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GroupCommitBatcherTest {
+
+    @Test
+    void writesEveryItemInOrderWithinBatchLimit() {
+        List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+        GroupCommitBatcher<Integer> batcher = new GroupCommitBatcher<>("order", 10_000, 50, 5, 0,
+                batch -> batches.add(List.copyOf(batch)));
+        try {
+            for (int i = 0; i < 5000; i++) {
+                batcher.add(i);
+            }
+            batcher.flush();
+        } finally {
+            batcher.shutdown();
+        }
+
+        List<Integer> written = new ArrayList<>();
+        for (List<Integer> batch : batches) {
+            assertTrue(batch.size() <= 50);
+            written.addAll(batch);
+        }
+        assertEquals(5000, written.size());
+        for (int i = 0; i < written.size(); i++) {
+            assertEquals(i, written.get(i));
+        }
+    }
+
+    @Test
+    void waitsForLingerToFillBatch() throws Exception {
+        List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+        CountDownLatch written = new CountDownLatch(1);
+        GroupCommitBatcher<Integer> batcher = new GroupCommitBatcher<>("linger", 100, 10, 500, 0, batch -> {
+            batches.add(List.copyOf(batch));
+            written.countDown();
+        });
+        try {
+            for (int i = 0; i < 5; i++) {
+                batcher.add(i);
+            }
+            assertTrue(written.await(5, TimeUnit.SECONDS));
+            assertEquals(List.of(List.of(0, 1, 2, 3, 4)), batches);
+        } finally {
+            batcher.shutdown();
+        }
+    }
+
+    @Test
+    void retriesFailedBatchUntilWritten() {
+        AtomicInteger attempts = new AtomicInteger();
+        List<Integer> written = new CopyOnWriteArrayList<>();
+        GroupCommitBatcher<Integer> batcher = new GroupCommitBatcher<>("retry", 100, 10, 0, 3, batch -> {
+            if (attempts.incrementAndGet() <= 2) {
+                throw new IllegalStateException("写入失败");
+            }
+            written.addAll(batch);
+        });
+        batcher.add(1);
+        batcher.shutdown();
+
+        assertEquals(3, attempts.get());
+        assertEquals(List.of(1), written);
+    }
+
+    @Test
+    void dropsBatchOnceRetriesAreExhausted() {
+        AtomicInteger attempts = new AtomicInteger();
+        GroupCommitBatcher<Integer> batcher = new GroupCommitBatcher<>("drop", 100, 10, 0, 1, batch -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("写入失败");
+        });
+        batcher.add(1);
+        batcher.shutdown();
+
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    void writesInCallerThreadWhenQueueIsFull() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Map<Integer, String> writtenBy = new ConcurrentHashMap<>();
+        List<Integer> written = new CopyOnWriteArrayList<>();
+        GroupCommitBatcher<Integer> batcher = new GroupCommitBatcher<>("full", 1, 10, 0, 0, batch -> {
+            for (Integer item : batch) {
+                writtenBy.put(item, Thread.currentThread().getName());
+            }
+            written.addAll(batch);
+            if (batch.contains(0)) {
+                entered.countDown();
+                awaitQuietly(release);
+            }
+        });
+        try {
+            batcher.add(0);
+            assertTrue(entered.await(5, TimeUnit.SECONDS));
+            // 后台线程写出中：1进入队列，队列已满后2由调用线程在1之后写出，并等待正在进行的写出完成
+            batcher.add(1);
+            Thread caller = new Thread(() -> batcher.add(2), "caller");
+            caller.start();
+            caller.join(200);
+            assertTrue(caller.isAlive(), "调用线程应等待正在进行的写出");
+
+            release.countDown();
+            caller.join(5000);
+            batcher.shutdown();
+            assertEquals("caller", writtenBy.get(2));
+            assertEquals(List.of(0, 1, 2), written);
+        } finally {
+            release.countDown();
+            batcher.shutdown();
+        }
+    }
+
+    @Test
+    void keepsOrderWhenCallerWritesOnFullQueue() {
+        List<Integer> written = new CopyOnWriteArrayList<>();
+        AtomicInteger callerWrites = new AtomicInteger();
+        Thread producer = Thread.currentThread();
+        GroupCommitBatcher<Integer> batcher = new GroupCommitBatcher<>("full-order", 4, 3, 1, 0, batch -> {
+            if (Thread.currentThread() == producer) {
+                callerWrites.incrementAndGet();
+            }
+            written.addAll(batch);
+            try {
+                Thread.sleep(0, 200_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        try {
+            for (int i = 0; i < 3000; i++) {
+                batcher.add(i);
+            }
+            batcher.flush();
+        } finally {
+            batcher.shutdown();
+        }
+
+        // 写出慢于放入，队列频繁写满，调用线程与后台线程交替写出
+        assertTrue(callerWrites.get() > 0);
+        assertEquals(3000, written.size());
+        for (int i = 0; i < written.size(); i++) {
+            assertEquals(i, written.get(i));
+        }
+    }
+
+    @Test
+    void shutdownWritesRemainingItems() {
+        List<Integer> written = new CopyOnWriteArrayList<>();
+        GroupCommitBatcher<Integer> batcher = new GroupCommitBatcher<>("shutdown", 1000, 7, 1000, 0, written::addAll);
+        for (int i = 0; i < 100; i++) {
+            batcher.add(i);
+        }
+        batcher.shutdown();
+
+        assertEquals(100, written.size());
+        // 关闭后放入的记录直接写出
+        batcher.add(100);
+        assertEquals(101, written.size());
+    }
+
+    @Test
+    void rejectsInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new GroupCommitBatcher<Integer>("x", 0, 1, 0, 0, batch -> {
+        }));
+        assertThrows(IllegalArgumentException.class, () -> new GroupCommitBatcher<Integer>("x", 1, 0, 0, 0, batch -> {
+        }));
+        assertThrows(IllegalArgumentException.class, () -> new GroupCommitBatcher<Integer>("x", 1, 1, -1, 0, batch -> {
+        }));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.ecommerce.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdGeneratorTest {
+
+    private static final int WORKER_BITS = 5;
+    private static final int DATACENTER_BITS = 5;
+
+    @Test
+    void idsAreUniqueAndIncreasingPerThreadUnderContention() throws Exception {
+        IdGenerator generator = new IdGenerator(1704067200000L, 1, 3, DATACENTER_BITS, WORKER_BITS, 12, 10);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<List<Long>>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    List<Long> ids = new ArrayList<>();
+                    while (ids.size() < 50_000) {
+                        // 交替使用单个与批量生成
+                        if (ThreadLocalRandom.current().nextBoolean()) {
+                            ids.add(generator.nextId());
+                        } else {
+                            for (long id : generator.nextIds(ThreadLocalRandom.current().nextInt(1, 500))) {
+                                ids.add(id);
+                            }
+                        }
+                    }
+                    return ids;
+                }));
+            }
+
+            Set<Long> all = new HashSet<>();
+            int total = 0;
+            for (Future<List<Long>> future : futures) {
+                List<Long> ids = future.get(60, TimeUnit.SECONDS);
+                for (int i = 1; i < ids.size(); i++) {
+                    assertTrue(ids.get(i) > ids.get(i - 1), "同一线程内ID应递增");
+                }
+                all.addAll(ids);
+                total += ids.size();
+            }
+            assertEquals(total, all.size(), "ID不应重复");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void nextIdsSpansMillisecondsWhenSequenceRunsOut() {
+        IdGenerator generator = new IdGenerator(1704067200000L, 0, 0, DATACENTER_BITS, WORKER_BITS, 12, 10);
+        long[] ids = generator.nextIds(20_000);
+        for (int i = 1; i < ids.length; i++) {
+            assertTrue(ids[i] > ids[i - 1]);
+        }
+    }
+
+    @Test
+    void borrowsFutureMillisecondsUpToLimitWhenClockIsStill() {
+        AtomicLong clock = new AtomicLong(1_000_000L);
+        // 每毫秒4个序列号，允许借用10毫秒：同一时钟读数下最多生成44个
+        IdGenerator generator = new IdGenerator(0, 0, 0, DATACENTER_BITS, WORKER_BITS, 2, 10, clock::get);
+        long[] ids = generator.nextIds(44);
+        Set<Long> unique = new HashSet<>();
+        for (int i = 0; i < ids.length; i++) {
+            unique.add(ids[i]);
+            if (i > 0) {
+                assertTrue(ids[i] > ids[i - 1]);
+            }
+        }
+        assertEquals(44, unique.size());
+        assertEquals(1_000_000L, timestampOf(ids[0], 2));
+        assertEquals(1_000_010L, timestampOf(ids[43], 2));
+    }
+
+    @Test
+    void waitsForClockOnceBorrowLimitIsReached() throws Exception {
+        AtomicLong clock = new AtomicLong(1_000_000L);
+        IdGenerator generator = new IdGenerator(0, 0, 0, DATACENTER_BITS, WORKER_BITS, 2, 10, clock::get);
+        long[] borrowed = generator.nextIds(44);
+
+        CompletableFuture<Long> next = CompletableFuture.supplyAsync(generator::nextId);
+        Thread.sleep(50);
+        assertFalse(next.isDone(), "借用已到上限时应等待时钟前进");
+
+        clock.incrementAndGet();
+        long id = next.get(5, TimeUnit.SECONDS);
+        assertTrue(id > borrowed[43]);
+        assertEquals(1_000_011L, timestampOf(id, 2));
+    }
+
+    @Test
+    void toleratesSmallClockRollback() {
+        AtomicLong clock = new AtomicLong(1_000_000L);
+        IdGenerator generator = new IdGenerator(0, 0, 0, DATACENTER_BITS, WORKER_BITS, 12, 10, clock::get);
+        long before = generator.nextId();
+        clock.addAndGet(-5);
+        long after = generator.nextId();
+        assertTrue(after > before);
+        assertEquals(1_000_000L, timestampOf(after, 12));
+    }
+
+    @Test
+    void rejectsLargeClockRollback() {
+        AtomicLong clock = new AtomicLong(1_000_000L);
+        IdGenerator generator = new IdGenerator(0, 0, 0, DATACENTER_BITS, WORKER_BITS, 12, 10, clock::get);
+        generator.nextId();
+        clock.addAndGet(-11);
+        assertThrows(IllegalStateException.class, generator::nextId);
+    }
+
+    @Test
+    void rejectsInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new IdGenerator(0, 32, 0, DATACENTER_BITS, WORKER_BITS, 12, 10));
+        assertThrows(IllegalArgumentException.class,
+                () -> new IdGenerator(0, 0, 0, DATACENTER_BITS, WORKER_BITS, 30, 10));
+        IdGenerator generator = new IdGenerator(0, 0, 0, DATACENTER_BITS, WORKER_BITS, 12, 10);
+        assertThrows(IllegalArgumentException.class, () -> generator.nextIds(0));
+    }
+
+    private static long timestampOf(long id, int sequenceBits) {
+        return id >>> (sequenceBits + WORKER_BITS + DATACENTER_BITS);
+    }
+}
@@ -0,0 +1,81 @@
+package com.ecommerce.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalLruCacheTest {
+
+    @Test
+    void evictsLeastRecentlyAccessedEntry() {
+        LocalLruCache<String, Integer> cache = new LocalLruCache<>(3, 1, 60_000);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("c", 3);
+        // 读取使a成为最近访问，淘汰b
+        assertEquals(1, cache.get("a"));
+        cache.put("d", 4);
+
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.get("a"));
+        assertEquals(3, cache.get("c"));
+        assertEquals(4, cache.get("d"));
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    void overwritingRefreshesRecency() {
+        LocalLruCache<String, Integer> cache = new LocalLruCache<>(2, 1, 60_000);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("a", 10);
+        cache.put("c", 3);
+
+        assertNull(cache.get("b"));
+        assertEquals(10, cache.get("a"));
+    }
+
+    @Test
+    void totalSizeStaysWithinCapacityAcrossSegments() {
+        LocalLruCache<Long, Long> cache = new LocalLruCache<>(100, 4, 60_000);
+        for (long key = 0; key < 10_000; key++) {
+            cache.put(key, key);
+        }
+        assertTrue(cache.size() <= 100, "条目数超出容量: " + cache.size());
+        assertEquals(9_999L, cache.get(9_999L));
+    }
+
+    @Test
+    void expiredEntriesReadAsMissing() throws Exception {
+        LocalLruCache<String, Integer> cache = new LocalLruCache<>(10, 2, 50);
+        cache.put("a", 1);
+        assertEquals(1, cache.get("a"));
+
+        Thread.sleep(80);
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void removeAndClear() {
+        LocalLruCache<String, Integer> cache = new LocalLruCache<>(10, 2, 60_000);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.remove("a");
+        assertNull(cache.get("a"));
+        assertEquals(2, cache.get("b"));
+
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void rejectsInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new LocalLruCache<String, String>(0, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new LocalLruCache<String, String>(1, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new LocalLruCache<String, String>(1, 1, 0));
+    }
+}
@@ -0,0 +1,112 @@
+package com.ecommerce.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PostingListTest {
+
+    @Test
+    void consecutiveIdsTakeOneByteEach() {
+        PostingList list = new PostingList();
+        for (long id = 1000; id < 2000; id++) {
+            list.add(id);
+        }
+        // 首个ID 1000占2字节，其余差值减一为0各占1字节
+        assertEquals(1000, list.size());
+        assertEquals(2 + 999, list.byteSize());
+        assertEquals(1000, list.toArray()[0]);
+        assertEquals(1999, list.toArray()[999]);
+    }
+
+    @Test
+    void roundTripsVarintBoundaries() {
+        long[] ids = {0, 1, 128, 129 + 127, 129 + 127 + 129, 1L << 35, (1L << 35) + (1L << 14) + 1, Long.MAX_VALUE};
+        PostingList list = new PostingList();
+        for (long id : ids) {
+            list.add(id);
+        }
+        assertArrayEquals(ids, list.toArray());
+        assertEquals(ids.length, list.size());
+    }
+
+    @Test
+    void matchesSortedSetUnderRandomAddsAndRemoves() {
+        Random random = new Random(3);
+        PostingList list = new PostingList();
+        TreeSet<Long> expected = new TreeSet<>();
+        for (int i = 0; i < 20_000; i++) {
+            long id = random.nextInt(3000);
+            if (random.nextInt(3) == 0) {
+                list.remove(id);
+                expected.remove(id);
+            } else {
+                list.add(id);
+                expected.add(id);
+            }
+            if (i % 500 == 0) {
+                assertArrayEquals(toArray(expected), list.toArray());
+            }
+        }
+        assertArrayEquals(toArray(expected), list.toArray());
+        assertEquals(expected.size(), list.size());
+    }
+
+    @Test
+    void ignoresDuplicatesAndMissingIds() {
+        PostingList list = new PostingList();
+        list.remove(5);
+        list.add(10);
+        list.add(3);
+        list.add(10);
+        list.add(3);
+        list.remove(7);
+        list.remove(11);
+        assertArrayEquals(new long[]{3, 10}, list.toArray());
+
+        list.remove(3);
+        list.remove(10);
+        assertTrue(list.isEmpty());
+        assertArrayEquals(new long[0], list.toArray());
+        list.add(4);
+        assertArrayEquals(new long[]{4}, list.toArray());
+    }
+
+    @Test
+    void retainAllMatchesSetIntersection() {
+        Random random = new Random(11);
+        PostingList list = new PostingList();
+        TreeSet<Long> ids = new TreeSet<>();
+        for (int i = 0; i < 2000; i++) {
+            long id = random.nextInt(100_000);
+            list.add(id);
+            ids.add(id);
+        }
+        TreeSet<Long> other = new TreeSet<>();
+        for (int i = 0; i < 5000; i++) {
+            other.add((long) random.nextInt(100_000));
+        }
+        other.addAll(ids.headSet(5000L));
+
+        TreeSet<Long> expected = new TreeSet<>(ids);
+        expected.retainAll(other);
+        assertArrayEquals(toArray(expected), list.retainAll(toArray(other)));
+        assertArrayEquals(new long[0], list.retainAll(new long[0]));
+        assertArrayEquals(new long[0], new PostingList().retainAll(toArray(other)));
+    }
+
+    @Test
+    void rejectsNegativeIds() {
+        assertThrows(IllegalArgumentException.class, () -> new PostingList().add(-1));
+    }
+
+    private static long[] toArray(TreeSet<Long> ids) {
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+}
@@ -0,0 +1,112 @@
+package com.ecommerce.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestCombinerTest {
+
+    @Test
+    void concurrentRequestsShareBatchesAndGetTheirOwnResults() throws Exception {
+        AtomicInteger batches = new AtomicInteger();
+        AtomicInteger maxBatch = new AtomicInteger();
+        RequestCombiner<Integer, Integer> combiner = new RequestCombiner<>(16, requests -> {
+            batches.incrementAndGet();
+            maxBatch.accumulateAndGet(requests.size(), Math::max);
+            sleepQuietly(1);
+            return requests.stream().map(request -> request * 2).toList();
+        });
+
+        int threads = 8;
+        int perThread = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int base = t * perThread;
+                futures.add(executor.submit(() -> {
+                    for (int i = base; i < base + perThread; i++) {
+                        assertEquals(i * 2, combiner.submit(i));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // 执行期间到达的请求合并到下一批
+        assertTrue(batches.get() < threads * perThread, "请求未被合并: " + batches.get());
+        assertTrue(maxBatch.get() > 1 && maxBatch.get() <= 16, "批次大小: " + maxBatch.get());
+    }
+
+    @Test
+    void failureIsReportedToEveryRequestInTheBatch() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("执行失败");
+        RequestCombiner<String, String> combiner = new RequestCombiner<>(10, requests -> {
+            if (requests.contains("block")) {
+                entered.countDown();
+                awaitQuietly(release);
+                return requests;
+            }
+            throw failure;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            Future<String> first = executor.submit(() -> combiner.submit("block"));
+            assertTrue(entered.await(5, TimeUnit.SECONDS));
+            // 第一批执行中到达的两个请求合成下一批，一起失败
+            Future<Throwable> second = executor.submit(() -> assertThrows(IllegalStateException.class, () -> combiner.submit("a")));
+            Future<Throwable> third = executor.submit(() -> assertThrows(IllegalStateException.class, () -> combiner.submit("b")));
+            Thread.sleep(100);
+            release.countDown();
+
+            assertEquals("block", first.get(5, TimeUnit.SECONDS));
+            assertSame(failure, second.get(5, TimeUnit.SECONDS));
+            assertSame(failure, third.get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void rejectsMismatchedResultsAndInvalidParameters() {
+        RequestCombiner<Integer, Integer> combiner = new RequestCombiner<>(4, requests -> List.of());
+        assertThrows(IllegalStateException.class, () -> combiner.submit(1));
+        assertThrows(IllegalArgumentException.class, () -> new RequestCombiner<Integer, Integer>(0, requests -> requests));
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
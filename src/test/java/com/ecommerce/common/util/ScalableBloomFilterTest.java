@@ -0,0 +1,108 @@
+package com.ecommerce.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScalableBloomFilterTest {
+
+    @Test
+    void noFalseNegativesAcrossStageGrowth() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(1000, 0.01);
+        long initialBytes = filter.byteSize();
+        Random random = new Random(5);
+        List<Long> keys = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextLong();
+            keys.add(key);
+            filter.put(key);
+        }
+
+        // 首级只能容纳1000个，期间追加了多级
+        assertTrue(filter.byteSize() > initialBytes * 50);
+        for (long key : keys) {
+            assertTrue(filter.mightContain(key), "已加入的键必须判断为可能存在: " + key);
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTargetAfterGrowth() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(1000, 0.01);
+        Set<Long> keys = new HashSet<>();
+        for (long id = 1; id <= 50_000; id++) {
+            keys.add(id);
+            filter.put(id);
+        }
+
+        Random random = new Random(9);
+        int probes = 0;
+        int falsePositives = 0;
+        while (probes < 200_000) {
+            long key = random.nextLong();
+            if (keys.contains(key)) {
+                continue;
+            }
+            probes++;
+            if (filter.mightContain(key)) {
+                falsePositives++;
+            }
+        }
+        double rate = (double) falsePositives / probes;
+        assertTrue(rate < 0.015, "误判率过高: " + rate);
+    }
+
+    @Test
+    void concurrentPutsDuringGrowthAreNotLost() throws Exception {
+        ScalableBloomFilter filter = new ScalableBloomFilter(500, 0.01);
+        int threads = 4;
+        int perThread = 25_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                long base = (long) t * perThread;
+                futures.add(executor.submit(() -> {
+                    for (long id = base; id < base + perThread; id++) {
+                        filter.put(id);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (long id = 0; id < (long) threads * perThread; id++) {
+            assertTrue(filter.mightContain(id), "并发加入的键丢失: " + id);
+        }
+    }
+
+    @Test
+    void emptyFilterContainsNothing() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(100, 0.01);
+        for (long key = 0; key < 1000; key++) {
+            assertFalse(filter.mightContain(key));
+        }
+    }
+
+    @Test
+    void rejectsInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new ScalableBloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new ScalableBloomFilter(100, 0));
+        assertThrows(IllegalArgumentException.class, () -> new ScalableBloomFilter(100, 1));
+    }
+}
@@ -0,0 +1,90 @@
+package com.ecommerce.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    @Test
+    void firesWithinOneTickAcrossOverflowLevels() {
+        // tick=1、8个槽位：各层范围为8、64、512、4096，600需要经过三级降级
+        TimingWheel<Long> wheel = new TimingWheel<>(1, 8, 0);
+        long[] deadlines = {0, 3, 7, 8, 10, 63, 64, 70, 511, 512, 600, 4095};
+        for (long deadline : deadlines) {
+            assertTrue(wheel.add(deadline, deadline));
+        }
+        assertEquals(deadlines.length, wheel.size());
+
+        Map<Long, Long> firedAt = new HashMap<>();
+        for (long now = 1; now <= 4200; now++) {
+            long time = now;
+            wheel.advance(now, deadline -> firedAt.put(deadline, time));
+        }
+
+        assertEquals(deadlines.length, firedAt.size());
+        for (long deadline : deadlines) {
+            assertEquals(deadline + 1, firedAt.get(deadline), "到期时间 " + deadline);
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void randomDeadlinesNeverFireEarlyOrMoreThanOneTickLate() {
+        long tick = 10;
+        long start = 1_000_003;
+        TimingWheel<Long> wheel = new TimingWheel<>(tick, 16, start);
+        Random random = new Random(7);
+        List<Long> deadlines = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            long deadline = start + random.nextInt(200_000);
+            deadlines.add(deadline);
+            wheel.add(deadline, deadline);
+        }
+
+        List<Long> fired = new ArrayList<>();
+        // 时间轮按tick对齐，在对齐的时刻推进
+        for (long now = start - start % tick + tick; now <= start + 200_000 + tick * 2; now += tick) {
+            long time = now;
+            wheel.advance(now, deadline -> {
+                assertTrue(deadline < time, "任务提前触发: " + deadline + " @ " + time);
+                assertTrue(time - deadline <= tick, "任务延迟超过一个tick: " + deadline + " @ " + time);
+                fired.add(deadline);
+            });
+        }
+        assertEquals(deadlines.size(), fired.size());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void tasksAddedAfterAdvancingUseCurrentTime() {
+        TimingWheel<String> wheel = new TimingWheel<>(1, 4, 0);
+        wheel.advance(100, item -> {
+        });
+        assertTrue(wheel.add("late", 130));
+
+        List<String> fired = new ArrayList<>();
+        wheel.advance(130, fired::add);
+        assertTrue(fired.isEmpty());
+        wheel.advance(131, fired::add);
+        assertEquals(List.of("late"), fired);
+    }
+
+    @Test
+    void rejectsExpiredDeadlinesAndInvalidParameters() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 8, 1000);
+        assertFalse(wheel.add("expired", 999));
+        assertEquals(0, wheel.size());
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheel<>(0, 8, 0));
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheel<>(10, 0, 0));
+    }
+}
@@ -0,0 +1,134 @@
+package com.ecommerce.service.impl;
+
+import com.ecommerce.common.exception.BusinessException;
+import com.ecommerce.common.constant.ErrorCode;
+import com.ecommerce.mapper.InventoryMapper;
+import com.ecommerce.mapper.StockReservationMapper;
+import com.ecommerce.model.entity.StockReservation;
+import com.ecommerce.model.vo.StockReservationResult;
+import com.ecommerce.service.FlashSaleStockService;
+import com.ecommerce.service.InventoryLedgerService;
+import com.ecommerce.service.LowStockIndexService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class InventoryServiceImplTest {
+
+    private static final Long ORDER_ID = 100L;
+
+    private static final LocalDateTime EXPIRE_TIME = LocalDateTime.of(2026, 1, 1, 0, 30);
+
+    @Mock
+    private InventoryMapper inventoryMapper;
+
+    @Mock
+    private StockReservationMapper stockReservationMapper;
+
+    @Mock
+    private FlashSaleStockService flashSaleStockService;
+
+    @Mock
+    private LowStockIndexService lowStockIndexService;
+
+    @Mock
+    private InventoryLedgerService inventoryLedgerService;
+
+    @InjectMocks
+    private InventoryServiceImpl inventoryService;
+
+    @Test
+    void reserveStockRejectsNullProductIdBeforeReserving() {
+        Map<Long, Integer> quantities = new HashMap<>();
+        quantities.put(1L, 2);
+        quantities.put(null, 1);
+        assertParamError(quantities);
+    }
+
+    @Test
+    void reserveStockRejectsNonPositiveQuantitiesBeforeReserving() {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        quantities.put(1L, 2);
+        quantities.put(2L, 0);
+        assertParamError(quantities);
+
+        quantities.put(2L, null);
+        assertParamError(quantities);
+
+        assertParamError(Map.of(-1L, 1));
+        assertParamError(Map.of());
+        assertParamError(null);
+    }
+
+    @Test
+    void reserveStockRequiresOrderAndExpireTime() {
+        assertThrows(BusinessException.class, () -> inventoryService.reserveStock(null, Map.of(1L, 1), EXPIRE_TIME));
+        assertThrows(BusinessException.class, () -> inventoryService.reserveStock(ORDER_ID, Map.of(1L, 1), null));
+        verify(inventoryMapper, never()).reserveStock(anyLong(), anyInt());
+    }
+
+    @Test
+    void reserveStockReportsEachProduct() {
+        when(inventoryMapper.reserveStock(1L, 2)).thenReturn(1);
+        when(inventoryMapper.reserveStock(2L, 5)).thenReturn(0);
+        when(inventoryMapper.existsByProductId(2L)).thenReturn(true);
+        when(inventoryMapper.reserveStock(3L, 1)).thenReturn(0);
+        when(inventoryMapper.existsByProductId(3L)).thenReturn(false);
+
+        when(flashSaleStockService.isHot(anyLong())).thenAnswer(invocation -> invocation.getArgument(0).equals(4L));
+        when(flashSaleStockService.reserve(Map.of(4L, 3))).thenReturn(Map.of());
+
+        StockReservationResult result = inventoryService.reserveStock(ORDER_ID, Map.of(3L, 1, 1L, 2, 2L, 5, 4L, 3), EXPIRE_TIME);
+
+        assertFalse(result.isAllReserved());
+        assertEquals(List.of(1L, 2L, 3L, 4L), result.getItems().stream().map(StockReservationResult.ItemResult::getProductId).toList());
+        assertEquals(List.of(StockReservationResult.ReservationStatus.RESERVED,
+                        StockReservationResult.ReservationStatus.INSUFFICIENT_STOCK,
+                        StockReservationResult.ReservationStatus.NOT_FOUND,
+                        StockReservationResult.ReservationStatus.RESERVED),
+                result.getItems().stream().map(StockReservationResult.ItemResult::getStatus).toList());
+
+        // 只为预占成功的商品登记预占记录，Redis中预扣的不计入锁定库存
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<StockReservation>> captor = ArgumentCaptor.forClass(List.class);
+        verify(stockReservationMapper).batchInsert(captor.capture());
+        List<StockReservation> holds = captor.getValue();
+        assertEquals(List.of(1L, 4L), holds.stream().map(StockReservation::getProductId).toList());
+        assertEquals(List.of(2, 0), holds.stream().map(StockReservation::getLockedQuantity).toList());
+        for (StockReservation hold : holds) {
+            assertEquals(ORDER_ID, hold.getOrderId());
+            assertEquals(EXPIRE_TIME, hold.getExpireTime());
+            assertEquals(StockReservation.ReservationStatus.HELD, hold.getStatus());
+        }
+    }
+
+    private void assertParamError(Map<Long, Integer> quantities) {
+        BusinessException e = assertThrows(BusinessException.class,
+                () -> inventoryService.reserveStock(ORDER_ID, quantities, EXPIRE_TIME));
+        assertEquals(ErrorCode.PARAM_ERROR, e.getCode());
+        verify(inventoryMapper, never()).reserveStock(anyLong(), anyInt());
+        verify(flashSaleStockService, never()).reserve(any());
+        verify(stockReservationMapper, never()).batchInsert(anyList());
+    }
+}